@@ -1,9 +1,23 @@
 package tn.astba.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
 
 @Configuration
 @EnableMongoAuditing
 public class MongoConfig {
+
+    /**
+     * Multi-document transactions (see MongoTransactionRunner). They need a replica set,
+     * so a standalone development server can turn them off.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "astba.mongo.transactions.enabled", havingValue = "true", matchIfMissing = true)
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
 }
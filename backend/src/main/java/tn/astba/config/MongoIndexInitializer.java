@@ -0,0 +1,93 @@
+package tn.astba.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+import tn.astba.domain.Enrollment;
+import tn.astba.domain.Group;
+import tn.astba.domain.JwtSigningKey;
+import tn.astba.domain.OAuth2Code;
+import tn.astba.domain.RefreshToken;
+import tn.astba.domain.Seance;
+import tn.astba.domain.Student;
+import tn.astba.domain.TrainingStructure;
+import tn.astba.domain.User;
+import tn.astba.search.TokenSearch;
+
+import java.time.Duration;
+
+/**
+ * Creates the indexes the query paths rely on.
+ * <p>
+ * Spring Data's automatic index creation is disabled by default, so {@code @Indexed}
+ * annotations alone do not create anything in the database. A failure (e.g. duplicate
+ * keys in legacy data for a unique index) is logged and does not prevent startup.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MongoIndexInitializer {
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        // students / users: multikey index serving prefix search (see TokenSearch)
+        ensure(Student.class, new Index().on(TokenSearch.FIELD, Sort.Direction.ASC)
+                .named("idx_student_search_tokens"));
+        ensure(User.class, new Index().on(TokenSearch.FIELD, Sort.Direction.ASC)
+                .named("idx_user_search_tokens"));
+
+        // enrollments: one enrollment per (student, training); bulk auto-enrollment relies on it
+        ensure(Enrollment.class, new Index().on("studentId", Sort.Direction.ASC).on("trainingId", Sort.Direction.ASC)
+                .unique().named("idx_enrollment_unique"));
+
+        // training_structures: immutable versions, one number per training
+        ensure(TrainingStructure.class, new Index().on("trainingId", Sort.Direction.ASC).on("version", Sort.Direction.ASC)
+                .unique().named("idx_training_structure_version"));
+
+        // groups: multikey index on members, used to find the groups of a student
+        ensure(Group.class, new Index().on("studentIds", Sort.Direction.ASC)
+                .named("idx_group_student_ids"));
+
+        // seances: calendar reads (per trainer or for everyone, by date range)
+        ensure(Seance.class, new Index().on("trainerId", Sort.Direction.ASC).on("date", Sort.Direction.ASC)
+                .named("idx_seance_trainer_date"));
+        ensure(Seance.class, new Index().on("date", Sort.Direction.ASC)
+                .named("idx_seance_date"));
+
+        // refresh_tokens: point lookup by hash, per-user revocation, TTL purge, revoked purge
+        ensure(RefreshToken.class, new Index().on("tokenHash", Sort.Direction.ASC)
+                .unique().named("idx_refresh_token_hash"));
+        ensure(RefreshToken.class, new Index().on("userId", Sort.Direction.ASC)
+                .named("idx_refresh_token_user"));
+        ensure(RefreshToken.class, new Index().on("familyId", Sort.Direction.ASC)
+                .named("idx_refresh_token_family"));
+        ensure(RefreshToken.class, new Index().on("expiresAt", Sort.Direction.ASC)
+                .expire(Duration.ZERO).named("idx_refresh_token_ttl"));
+        ensure(RefreshToken.class, new Index().on("revokedAt", Sort.Direction.ASC)
+                .sparse().named("idx_refresh_token_revoked"));
+
+        // oauth2_codes: TTL purge of unredeemed codes (Mongo-backed code store)
+        ensure(OAuth2Code.class, new Index().on("expiresAt", Sort.Direction.ASC)
+                .expire(Duration.ZERO).named("idx_oauth2_code_ttl"));
+
+        // jwt_signing_keys: published public keys disappear once no token can use them
+        ensure(JwtSigningKey.class, new Index().on("expiresAt", Sort.Direction.ASC)
+                .expire(Duration.ZERO).named("idx_jwt_signing_key_ttl"));
+    }
+
+    private void ensure(Class<?> type, Index index) {
+        try {
+            mongoTemplate.indexOps(type).ensureIndex(index);
+        } catch (Exception e) {
+            log.warn("Création d'index impossible sur {}: {}", type.getSimpleName(), e.getMessage());
+        }
+    }
+}
@@ -1,15 +1,57 @@
 package tn.astba.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+/**
+ * BCrypt encoder whose cost is calibrated at startup: the highest cost whose
+ * hashing time stays under {@code astba.password.bcrypt.target-ms} on this machine,
+ * clamped to [min-strength, max-strength]. A fixed {@code strength} skips calibration.
+ */
+@Slf4j
 @Configuration
 public class PasswordEncoderConfig {
 
+    private static final String SAMPLE_PASSWORD = "calibration-Pa55word!";
+
+    @Value("${astba.password.bcrypt.strength:0}")
+    private int fixedStrength;
+
+    @Value("${astba.password.bcrypt.target-ms:250}")
+    private long targetMillis;
+
+    @Value("${astba.password.bcrypt.min-strength:10}")
+    private int minStrength;
+
+    @Value("${astba.password.bcrypt.max-strength:14}")
+    private int maxStrength;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int strength = fixedStrength > 0 ? fixedStrength : calibrate();
+        log.info("Coût BCrypt: {}", strength);
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * Each cost increment doubles the work, so one measurement at the minimum cost
+     * is enough to extrapolate the cost matching the target latency.
+     */
+    private int calibrate() {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode(SAMPLE_PASSWORD); // warm-up (JIT)
+        long start = System.nanoTime();
+        probe.encode(SAMPLE_PASSWORD);
+        double elapsedMillis = Math.max(1.0, (System.nanoTime() - start) / 1_000_000.0);
+
+        int extra = (int) Math.floor(Math.log(targetMillis / elapsedMillis) / Math.log(2));
+        int strength = Math.max(minStrength, Math.min(maxStrength, minStrength + extra));
+        log.debug("Calibration BCrypt: coût {} = {} ms, cible {} ms -> coût {}",
+                minStrength, Math.round(elapsedMillis), targetMillis, strength);
+        return strength;
     }
 }
@@ -1,5 +1,6 @@
 package tn.astba.config;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -14,6 +15,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import tn.astba.security.AuthRateLimitFilter;
 import tn.astba.security.JwtAccessDeniedHandler;
 import tn.astba.security.JwtAuthenticationEntryPoint;
 import tn.astba.security.JwtAuthenticationFilter;
@@ -27,6 +29,7 @@ import tn.astba.security.OAuth2AuthenticationSuccessHandler;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final AuthRateLimitFilter authRateLimitFilter;
     private final JwtAuthenticationEntryPoint authenticationEntryPoint;
     private final JwtAccessDeniedHandler accessDeniedHandler;
 
@@ -50,11 +53,15 @@ public class SecurityConfig {
                     .authenticationEntryPoint(authenticationEntryPoint)
                     .accessDeniedHandler(accessDeniedHandler))
             .authorizeHttpRequests(auth -> auth
+                    // Completion of streamed exports: the request was authorized on the initial dispatch
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                     // Public endpoints (login, register, refresh, logout – but NOT /me)
                     .requestMatchers("/api/auth/login", "/api/auth/register",
                                      "/api/auth/refresh", "/api/auth/logout",
                                      "/api/auth/oauth2-exchange").permitAll()
+                    .requestMatchers("/.well-known/jwks.json").permitAll()
                     .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                    .requestMatchers("/actuator/**").hasRole("ADMIN")
                     .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/api-docs/**").permitAll()
                     .requestMatchers("/oauth2/**", "/login/oauth2/**").permitAll()
                     // Serve uploaded files publicly (images, documents)
@@ -68,7 +75,8 @@ public class SecurityConfig {
                     // Everything else requires authentication
                     .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(authRateLimitFilter, JwtAuthenticationFilter.class);
 
         // Only enable OAuth2 login if a ClientRegistrationRepository is available
         if (clientRegistrationRepository != null && oAuth2SuccessHandler != null) {
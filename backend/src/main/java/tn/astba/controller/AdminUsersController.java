@@ -21,7 +21,9 @@ public class AdminUsersController {
 
     private final AuthService authService;
 
-    @Operation(summary = "Liste paginée des utilisateurs")
+    @Operation(summary = "Liste paginée des utilisateurs",
+            description = "Sans recherche, tri du plus récent au plus ancien. Avec une recherche (q), les 1000 premiers "
+                    + "résultats (dans cet ordre) sont triés par pertinence, les suivants restent du plus récent au plus ancien.")
     @GetMapping
     public ResponseEntity<Page<UserResponse>> list(
             @RequestParam(required = false) String q,
@@ -1,6 +1,7 @@
 package tn.astba.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -9,7 +10,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import tn.astba.dto.EnrollmentCreateRequest;
+import tn.astba.dto.EnrollmentReassignRequest;
+import tn.astba.dto.EnrollmentReassignResponse;
 import tn.astba.dto.EnrollmentResponse;
+import tn.astba.service.EnrollmentFields;
 import tn.astba.service.EnrollmentService;
 
 import java.util.List;
@@ -20,6 +24,9 @@ import java.util.List;
 @Tag(name = "Inscriptions", description = "Gestion des inscriptions élève ↔ formation")
 public class EnrollmentController {
 
+    private static final String VIEW_DOC = "full (par défaut), summary (progression + élève) ou minimal";
+    private static final String FIELDS_DOC = "Parties à inclure, prioritaire sur view: attendance, progress, student, training";
+
     private final EnrollmentService enrollmentService;
 
     @PostMapping("/enrollments")
@@ -31,20 +38,29 @@ public class EnrollmentController {
 
     @GetMapping("/enrollments/{enrollmentId}")
     @Operation(summary = "Détails d'une inscription")
-    public ResponseEntity<EnrollmentResponse> findById(@PathVariable String enrollmentId) {
-        return ResponseEntity.ok(enrollmentService.findById(enrollmentId));
+    public ResponseEntity<EnrollmentResponse> findById(
+            @PathVariable String enrollmentId,
+            @Parameter(description = VIEW_DOC) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DOC) @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(enrollmentService.findById(enrollmentId, EnrollmentFields.of(view, fields)));
     }
 
     @GetMapping("/students/{studentId}/enrollments")
     @Operation(summary = "Inscriptions d'un élève")
-    public ResponseEntity<List<EnrollmentResponse>> findByStudent(@PathVariable String studentId) {
-        return ResponseEntity.ok(enrollmentService.findByStudentId(studentId));
+    public ResponseEntity<List<EnrollmentResponse>> findByStudent(
+            @PathVariable String studentId,
+            @Parameter(description = VIEW_DOC) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DOC) @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(enrollmentService.findByStudentId(studentId, EnrollmentFields.of(view, fields)));
     }
 
     @GetMapping("/trainings/{trainingId}/enrollments")
     @Operation(summary = "Inscriptions à une formation")
-    public ResponseEntity<List<EnrollmentResponse>> findByTraining(@PathVariable String trainingId) {
-        return ResponseEntity.ok(enrollmentService.findByTrainingId(trainingId));
+    public ResponseEntity<List<EnrollmentResponse>> findByTraining(
+            @PathVariable String trainingId,
+            @Parameter(description = VIEW_DOC) @RequestParam(required = false) String view,
+            @Parameter(description = FIELDS_DOC) @RequestParam(required = false) String fields) {
+        return ResponseEntity.ok(enrollmentService.findByTrainingId(trainingId, EnrollmentFields.of(view, fields)));
     }
 
     @PutMapping("/enrollments/{enrollmentId}/group/{newGroupId}")
@@ -56,4 +72,14 @@ public class EnrollmentController {
             @PathVariable String newGroupId) {
         return ResponseEntity.ok(enrollmentService.reassignGroup(enrollmentId, newGroupId));
     }
+
+    @PutMapping("/enrollments/group/{newGroupId}")
+    @Operation(summary = "Réaffecter plusieurs inscriptions à un groupe",
+               description = "Déplace les élèves vers le groupe en une seule transaction")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<EnrollmentReassignResponse> reassignGroup(
+            @PathVariable String newGroupId,
+            @Valid @RequestBody EnrollmentReassignRequest request) {
+        return ResponseEntity.ok(enrollmentService.reassignGroup(request.getEnrollmentIds(), newGroupId));
+    }
 }
@@ -0,0 +1,117 @@
+package tn.astba.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.astba.service.ExportFormat;
+import tn.astba.service.ExportService;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+@PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+@Tag(name = "Exports", description = "Exports CSV / NDJSON en flux continu")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    @GetMapping("/students")
+    @Operation(summary = "Exporter tous les élèves")
+    public ResponseEntity<StreamingResponseBody> students(
+            @Parameter(description = "csv ou ndjson") @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat f = ExportFormat.of(format);
+        return stream("eleves", f, acceptEncoding, exportService.students(f));
+    }
+
+    @GetMapping("/enrollments")
+    @Operation(summary = "Exporter les inscriptions (toutes ou d'une formation)")
+    public ResponseEntity<StreamingResponseBody> enrollments(
+            @Parameter(description = "Filtrer sur une formation") @RequestParam(required = false) String trainingId,
+            @Parameter(description = "csv ou ndjson") @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat f = ExportFormat.of(format);
+        return stream("inscriptions", f, acceptEncoding, exportService.enrollments(trainingId, f));
+    }
+
+    @GetMapping("/trainings/{trainingId}/attendance")
+    @Operation(summary = "Exporter la matrice de présence d'une formation",
+               description = "Une ligne par élève inscrit, une colonne par séance")
+    public ResponseEntity<StreamingResponseBody> attendance(
+            @PathVariable String trainingId,
+            @Parameter(description = "csv ou ndjson") @RequestParam(defaultValue = "csv") String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ExportFormat f = ExportFormat.of(format);
+        return stream("presences-" + trainingId, f, acceptEncoding, exportService.attendanceMatrix(trainingId, f));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, String acceptEncoding,
+                                                                ExportService.ExportBody body) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String filename = name + "-" + LocalDate.now() + "." + format.extension();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip) {
+            return response.body(body::writeTo);
+        }
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(out -> {
+                    GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024, true);
+                    body.writeTo(compressed);
+                    compressed.finish();
+                });
+    }
+
+    /**
+     * Whether the Accept-Encoding header allows gzip: listed (or matched by {@code *})
+     * with a non-zero quality; an explicit {@code gzip;q=0} refuses it.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        Double gzip = null;
+        Double wildcard = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = q;
+            } else if (coding.equals("*")) {
+                wildcard = q;
+            }
+        }
+        if (gzip != null) return gzip > 0;
+        return wildcard != null && wildcard > 0;
+    }
+}
@@ -1,6 +1,7 @@
 package tn.astba.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -9,9 +10,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import tn.astba.dto.GroupCreateRequest;
+import tn.astba.dto.GroupMembershipRequest;
+import tn.astba.dto.GroupMembershipResponse;
 import tn.astba.dto.GroupResponse;
 import tn.astba.dto.GroupUpdateRequest;
 import tn.astba.service.GroupService;
+import tn.astba.service.GroupView;
 
 import java.util.List;
 
@@ -26,11 +30,14 @@ public class GroupController {
     @GetMapping
     @Operation(summary = "Lister tous les groupes")
     public ResponseEntity<List<GroupResponse>> findAll(
-            @RequestParam(required = false) String trainingId) {
+            @RequestParam(required = false) String trainingId,
+            @Parameter(description = "full (élèves inclus) ou summary (identifiants et effectifs)")
+            @RequestParam(required = false) String view) {
+        GroupView groupView = GroupView.of(view);
         if (trainingId != null && !trainingId.isBlank()) {
-            return ResponseEntity.ok(groupService.findByTrainingId(trainingId));
+            return ResponseEntity.ok(groupService.findByTrainingId(trainingId, groupView));
         }
-        return ResponseEntity.ok(groupService.findAll());
+        return ResponseEntity.ok(groupService.findAll(groupView));
     }
 
     @GetMapping("/{groupId}")
@@ -70,6 +77,15 @@ public class GroupController {
         return ResponseEntity.ok(groupService.removeStudent(groupId, studentId));
     }
 
+    @PostMapping("/{groupId}/students")
+    @Operation(summary = "Ajouter et/ou retirer plusieurs élèves du groupe",
+               description = "Chaque liste est appliquée en une seule mise à jour atomique")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<GroupMembershipResponse> updateMembers(@PathVariable String groupId,
+                                                                  @Valid @RequestBody GroupMembershipRequest request) {
+        return ResponseEntity.ok(groupService.updateMembers(groupId, request));
+    }
+
     @DeleteMapping("/{groupId}")
     @Operation(summary = "Supprimer un groupe")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
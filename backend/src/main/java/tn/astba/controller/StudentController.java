@@ -7,12 +7,16 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import tn.astba.dto.StudentCreateRequest;
+import tn.astba.dto.StudentImportResponse;
 import tn.astba.dto.StudentResponse;
 import tn.astba.dto.StudentUpdateRequest;
+import tn.astba.service.StudentImportService;
 import tn.astba.service.StudentService;
 
 @RestController
@@ -22,9 +26,12 @@ import tn.astba.service.StudentService;
 public class StudentController {
 
     private final StudentService studentService;
+    private final StudentImportService studentImportService;
 
     @GetMapping
-    @Operation(summary = "Lister les étudiants", description = "Liste paginée avec recherche optionnelle (nom, prénom, email)")
+    @Operation(summary = "Lister les étudiants", description = "Liste paginée avec recherche optionnelle (nom, prénom, email). "
+            + "Sans recherche, tri par nom puis prénom. Avec une recherche, les 1000 premiers résultats "
+            + "(dans cet ordre) sont triés par pertinence, les suivants restent triés par nom.")
     public ResponseEntity<Page<StudentResponse>> findAll(
             @Parameter(description = "Recherche par nom, prénom ou email") @RequestParam(required = false) String query,
             @Parameter(description = "Numéro de page (0-indexed)") @RequestParam(defaultValue = "0") int page,
@@ -45,6 +52,16 @@ public class StudentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(studentService.create(request));
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importer des étudiants depuis un CSV",
+               description = "Colonnes: prénom, nom, date de naissance, email (obligatoires), téléphone, notes. "
+                           + "Séparateur , ou ; — dates AAAA-MM-JJ ou JJ/MM/AAAA. dryRun=true valide sans rien enregistrer.")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<StudentImportResponse> importCsv(@RequestParam("file") MultipartFile file,
+                                                           @RequestParam(defaultValue = "false") boolean dryRun) {
+        return ResponseEntity.ok(studentImportService.importCsv(file, dryRun));
+    }
+
     @PutMapping("/{studentId}")
     @Operation(summary = "Mettre à jour un étudiant")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
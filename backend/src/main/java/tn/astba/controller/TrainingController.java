@@ -13,7 +13,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import tn.astba.domain.Training;
 import tn.astba.dto.*;
-import tn.astba.repository.TrainingRepository;
+import tn.astba.service.ProgressRecomputeService;
 import tn.astba.service.TrainingService;
 
 import java.util.Base64;
@@ -28,7 +28,7 @@ import java.util.concurrent.TimeUnit;
 public class TrainingController {
 
     private final TrainingService trainingService;
-    private final TrainingRepository trainingRepository;
+    private final ProgressRecomputeService progressRecomputeService;
 
     @GetMapping
     @Operation(summary = "Lister toutes les formations")
@@ -57,6 +57,24 @@ public class TrainingController {
         return ResponseEntity.ok(trainingService.update(trainingId, request));
     }
 
+    @GetMapping("/{trainingId}/progress-recompute")
+    @Operation(summary = "Avancement du recalcul des progressions")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public ResponseEntity<ProgressRecomputeResponse> getProgressRecompute(@PathVariable String trainingId) {
+        return ResponseEntity.ok(progressRecomputeService.getStatus(trainingId));
+    }
+
+    @PostMapping("/{trainingId}/progress-recompute")
+    @Operation(summary = "Recalculer les progressions sur la dernière version de la structure",
+               description = "Les inscriptions restent sinon rattachées à la version de la structure "
+                       + "(niveaux/séances) en vigueur lors de leur création")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProgressRecomputeResponse> recomputeProgress(@PathVariable String trainingId) {
+        trainingService.getTrainingOrThrow(trainingId);
+        progressRecomputeService.schedule(trainingId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(progressRecomputeService.getStatus(trainingId));
+    }
+
     @DeleteMapping("/{trainingId}")
     @Operation(summary = "Supprimer une formation")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
@@ -79,12 +97,10 @@ public class TrainingController {
     public ResponseEntity<Map<String, String>> uploadDocument(
             @PathVariable String trainingId,
             @RequestParam("file") MultipartFile file) {
-        Training training = trainingService.getTrainingOrThrow(trainingId);
+        trainingService.getTrainingOrThrow(trainingId);
         try {
             String base64 = Base64.getEncoder().encodeToString(file.getBytes());
-            training.setDocumentBase64(base64);
-            training.setDocumentFilename(file.getOriginalFilename());
-            trainingRepository.save(training);
+            trainingService.setDocument(trainingId, base64, file.getOriginalFilename());
             String documentUrl = "/trainings/" + trainingId + "/document";
             return ResponseEntity.ok(Map.of(
                     "documentUrl", documentUrl,
@@ -116,10 +132,7 @@ public class TrainingController {
     @Operation(summary = "Supprimer le document PDF d'une formation")
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
     public ResponseEntity<Void> deleteDocument(@PathVariable String trainingId) {
-        Training training = trainingService.getTrainingOrThrow(trainingId);
-        training.setDocumentBase64(null);
-        training.setDocumentFilename(null);
-        trainingRepository.save(training);
+        trainingService.setDocument(trainingId, null, null);
         return ResponseEntity.noContent().build();
     }
 }
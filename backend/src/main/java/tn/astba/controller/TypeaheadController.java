@@ -0,0 +1,42 @@
+package tn.astba.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import tn.astba.dto.TypeaheadSuggestion;
+import tn.astba.service.TypeaheadService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/typeahead")
+@RequiredArgsConstructor
+@Tag(name = "Autocomplétion", description = "Suggestions de noms servies depuis la mémoire")
+public class TypeaheadController {
+
+    private final TypeaheadService typeaheadService;
+
+    @GetMapping("/students")
+    @Operation(summary = "Suggestions d'élèves par nom ou prénom")
+    public ResponseEntity<List<TypeaheadSuggestion>> students(
+            @Parameter(description = "Début du nom ou du prénom") @RequestParam String q,
+            @Parameter(description = "Nombre maximum de suggestions (max 50)") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(typeaheadService.suggestStudents(q, limit));
+    }
+
+    @GetMapping("/trainers")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    @Operation(summary = "Suggestions de formateurs actifs par nom ou prénom")
+    public ResponseEntity<List<TypeaheadSuggestion>> trainers(
+            @Parameter(description = "Début du nom ou du prénom") @RequestParam String q,
+            @Parameter(description = "Nombre maximum de suggestions (max 50)") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(typeaheadService.suggestTrainers(q, limit));
+    }
+}
@@ -37,6 +37,9 @@ public class Enrollment {
 
     private Instant enrolledAt;
 
+    /** Training structure version the progress is measured against (null = 1) */
+    private Integer structureVersion;
+
     @Builder.Default
     private Map<String, AttendanceEntry> attendance = new HashMap<>(); // sessionId -> AttendanceEntry
 
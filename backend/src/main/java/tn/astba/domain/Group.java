@@ -45,7 +45,8 @@ public class Group {
     /** Schedule: end time */
     private LocalTime endTime;
 
-    /** Student IDs belonging to this group */
+    /** Student IDs belonging to this group (multikey index, see findByStudentIdsContaining) */
+    @Indexed
     @Builder.Default
     private List<String> studentIds = new ArrayList<>();
 
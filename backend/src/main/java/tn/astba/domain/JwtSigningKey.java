@@ -0,0 +1,40 @@
+package tn.astba.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Public half of an access-token signing key, published so that every node (and the
+ * JWKS endpoint) can verify tokens signed by any other node. Private keys never leave
+ * the node that generated them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "jwt_signing_keys")
+public class JwtSigningKey {
+
+    /** JWS {@code kid} header */
+    @Id
+    private String kid;
+
+    private String algorithm;
+
+    /** X.509 (SubjectPublicKeyInfo) encoding, Base64 */
+    private String publicKey;
+
+    private Instant createdAt;
+
+    /** The owning node stops signing with the key at this instant */
+    private Instant activeUntil;
+
+    /** Tokens signed with the key can no longer be alive after this instant (TTL, see MongoIndexInitializer) */
+    private Instant expiresAt;
+}
@@ -0,0 +1,32 @@
+package tn.astba.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * One-time OAuth2 exchange code shared between nodes.
+ * The document id is the SHA-256 of the code, the code itself is never stored.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "oauth2_codes")
+public class OAuth2Code {
+
+    @Id
+    private String codeHash;
+
+    private String accessToken;
+
+    private String refreshToken;
+
+    /** TTL index created by {@link tn.astba.config.MongoIndexInitializer} */
+    private Instant expiresAt;
+}
@@ -0,0 +1,57 @@
+package tn.astba.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Recomputation of the progress snapshots of a training's enrollments, triggered when
+ * the training's structure changes. One document per training, so a new structural change
+ * restarts the job (new {@code generation}) instead of queueing another one.
+ * <p>
+ * Enrollments are processed in {@code _id} order and {@code lastEnrollmentId} is the
+ * checkpoint: a job interrupted by a crash resumes after it.
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "progress_recompute_jobs")
+public class ProgressRecomputeJob {
+
+    /** The training ID */
+    @Id
+    private String trainingId;
+
+    private RecomputeStatus status;
+
+    /** Incremented on every (re)scheduling; checkpoints of an older run are ignored */
+    private long generation;
+
+    /** Enrollments of the training when the run started (estimate for progress reporting) */
+    private long total;
+
+    /** Enrollments processed so far */
+    private long processed;
+
+    /** Enrollments whose snapshot actually changed */
+    private long updated;
+
+    /** Checkpoint: every enrollment up to this ID is done */
+    private String lastEnrollmentId;
+
+    /** Node running the job, and its last sign of life (stale jobs are taken over) */
+    private String owner;
+    private Instant heartbeatAt;
+
+    private Instant requestedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
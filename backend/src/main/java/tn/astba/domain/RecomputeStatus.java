@@ -0,0 +1,8 @@
+package tn.astba.domain;
+
+public enum RecomputeStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -6,11 +6,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
+/**
+ * Stored refresh token. Its indexes (unique hash, user, family, TTL on expiresAt,
+ * revokedAt) are created by {@link tn.astba.config.MongoIndexInitializer}.
+ */
 @Data
 @Builder
 @NoArgsConstructor
@@ -21,12 +24,14 @@ public class RefreshToken {
     @Id
     private String id;
 
-    @Indexed
     private String userId;
 
     private String tokenHash; // SHA-256 hash of the actual token
 
-    private Instant expiresAt;
+    /** Shared by every token of one login session; rotation keeps it, replay revokes all of it */
+    private String familyId;
+
+    private Instant expiresAt; // TTL: Mongo purges the document once expired
 
     private Instant revokedAt; // null if active
 
@@ -59,6 +59,16 @@ public class Seance {
     /** Human-readable title, e.g. "Niveau 1 – Séance 3" */
     private String title;
 
+    // Denormalized display names, kept up to date by SeanceReadModel
+
+    private String trainingTitle;
+
+    private String trainingDocumentUrl;
+
+    private String groupName;
+
+    private String trainerName;
+
     @CreatedDate
     private Instant createdAt;
 
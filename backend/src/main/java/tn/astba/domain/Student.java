@@ -10,9 +10,11 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import tn.astba.search.Searchable;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.List;
 
 @Data
 @Builder
@@ -20,7 +22,7 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @Document(collection = "students")
 @CompoundIndex(name = "idx_student_name", def = "{'lastName': 1, 'firstName': 1}")
-public class Student {
+public class Student implements Searchable {
 
     @Id
     private String id;
@@ -39,9 +41,18 @@ public class Student {
 
     private String notes;
 
+    /** Normalized name/email tokens for prefix search, maintained on save */
+    @Indexed
+    private List<String> searchTokens;
+
     @CreatedDate
     private Instant createdAt;
 
     @LastModifiedDate
     private Instant updatedAt;
+
+    @Override
+    public String[] searchableFields() {
+        return new String[] { firstName, lastName, email };
+    }
 }
@@ -0,0 +1,30 @@
+package tn.astba.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * "Access tokens issued before {@code notBefore} are invalid" marker for one user.
+ * The document id is the user id, so there is at most one row per user.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "token_revocations")
+public class TokenRevocation {
+
+    /** User ID */
+    @Id
+    private String userId;
+
+    @Indexed
+    private Instant notBefore;
+}
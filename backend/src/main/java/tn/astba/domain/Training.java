@@ -33,6 +33,10 @@ public class Training {
 
     private List<Level> levels; // 4 levels
 
+    /** Published version of the current levels (see TrainingStructure) */
+    private Integer structureVersion;
+    private String structureHash;
+
     @CreatedDate
     private Instant createdAt;
 
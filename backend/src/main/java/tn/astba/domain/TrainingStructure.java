@@ -0,0 +1,41 @@
+package tn.astba.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable snapshot of a training's levels and sessions. A new version is written on
+ * every structural change; enrollments pin the version they are measured against, so
+ * editing a training never rewrites historical progress.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "training_structures")
+public class TrainingStructure {
+
+    @Id
+    private String id;
+
+    private String trainingId;
+
+    /** 1, 2, ... unique per training (idx_training_structure_version) */
+    private int version;
+
+    /** SHA-256 of the canonical structure, identical structures are not versioned twice */
+    private String contentHash;
+
+    private List<Level> levels;
+
+    @CreatedDate
+    private Instant createdAt;
+}
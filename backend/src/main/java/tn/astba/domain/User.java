@@ -9,9 +9,11 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import tn.astba.search.Searchable;
 
 import java.time.Instant;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Data
@@ -19,7 +21,7 @@ import java.util.Set;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "users")
-public class User {
+public class User implements Searchable {
 
     @Id
     private String id;
@@ -55,9 +57,18 @@ public class User {
 
     private Instant lastLoginAt;
 
+    /** Normalized name/email tokens for prefix search, maintained on save */
+    @Indexed
+    private List<String> searchTokens;
+
     @CreatedDate
     private Instant createdAt;
 
     @LastModifiedDate
     private Instant updatedAt;
+
+    @Override
+    public String[] searchableFields() {
+        return new String[] { firstName, lastName, email };
+    }
 }
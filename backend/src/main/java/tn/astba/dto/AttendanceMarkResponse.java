@@ -15,6 +15,9 @@ public class AttendanceMarkResponse {
     private int updatedCount;
     private int missingEnrollmentsCount;
     private List<String> missingStudentIds;
+    /** Enrolled students whose pinned structure version does not have the session */
+    private int structureMismatchCount;
+    private List<String> structureMismatchStudentIds;
     private boolean progressUpdated;
     private String message;
 }
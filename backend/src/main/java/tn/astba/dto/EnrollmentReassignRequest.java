@@ -0,0 +1,21 @@
+package tn.astba.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentReassignRequest {
+
+    @NotEmpty(message = "Au moins une inscription est requise")
+    @Size(max = 1000, message = "1000 inscriptions maximum par opération")
+    private List<String> enrollmentIds;
+}
@@ -0,0 +1,22 @@
+package tn.astba.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentReassignResponse {
+    private String groupId;
+    /** Enrollments whose group changed (those already in the group are not counted) */
+    private int moved;
+    /** Groups the students were moved out of */
+    private List<String> fromGroupIds;
+    /** Member count of the target group after the move */
+    private int studentCount;
+}
@@ -1,5 +1,6 @@
 package tn.astba.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,11 +21,17 @@ public class EnrollmentResponse {
     private String trainingId;
     private String groupId;
     private Instant enrolledAt;
+    private Instant createdAt;
+
+    // Optional parts, left out of the JSON when not requested (see EnrollmentFields)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private Map<String, AttendanceEntry> attendance;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private ProgressSnapshot progressSnapshot;
-    private Instant createdAt;
 
     // Enriched fields (populated when needed)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private StudentResponse student;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private TrainingResponse training;
 }
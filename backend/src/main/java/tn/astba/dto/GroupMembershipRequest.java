@@ -0,0 +1,24 @@
+package tn.astba.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupMembershipRequest {
+
+    /** Student IDs to add to the group (and auto-enroll in its training) */
+    @Size(max = 1000, message = "1000 élèves maximum par opération")
+    private List<String> add;
+
+    /** Student IDs to remove from the group */
+    @Size(max = 1000, message = "1000 élèves maximum par opération")
+    private List<String> remove;
+}
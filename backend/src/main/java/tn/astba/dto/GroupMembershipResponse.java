@@ -0,0 +1,22 @@
+package tn.astba.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupMembershipResponse {
+    private String groupId;
+    /** Students that were not members before the operation */
+    private List<String> added;
+    /** Students that were members before the operation */
+    private List<String> removed;
+    /** Member count right after the operation */
+    private int studentCount;
+}
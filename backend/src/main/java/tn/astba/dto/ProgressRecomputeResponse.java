@@ -0,0 +1,27 @@
+package tn.astba.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tn.astba.domain.RecomputeStatus;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProgressRecomputeResponse {
+    private String trainingId;
+    private RecomputeStatus status;
+    private long total;
+    private long processed;
+    private long updated;
+    /** 0-100 */
+    private int percent;
+    private Instant requestedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
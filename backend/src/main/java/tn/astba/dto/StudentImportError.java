@@ -0,0 +1,17 @@
+package tn.astba.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentImportError {
+    /** Line number in the uploaded file (header is line 1) */
+    private int line;
+    private String field;
+    private String message;
+}
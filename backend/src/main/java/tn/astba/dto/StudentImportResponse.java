@@ -0,0 +1,23 @@
+package tn.astba.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentImportResponse {
+    private boolean dryRun;
+    private int totalRows;
+    /** Rows inserted, or that would be inserted in dry-run mode */
+    private int imported;
+    private int rejected;
+    /** First errors only, see {@code errorsTruncated} */
+    private List<StudentImportError> errors;
+    private boolean errorsTruncated;
+}
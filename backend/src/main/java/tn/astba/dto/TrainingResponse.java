@@ -19,6 +19,7 @@ public class TrainingResponse {
     private String description;
     private String documentUrl;
     private List<Level> levels;
+    private Integer structureVersion;
     private Instant createdAt;
     private Instant updatedAt;
 }
@@ -0,0 +1,14 @@
+package tn.astba.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import tn.astba.domain.JwtSigningKey;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface JwtSigningKeyRepository extends MongoRepository<JwtSigningKey, String> {
+
+    List<JwtSigningKey> findByExpiresAtAfter(Instant instant);
+}
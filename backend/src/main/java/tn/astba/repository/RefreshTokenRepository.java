@@ -13,7 +13,11 @@ public interface RefreshTokenRepository extends MongoRepository<RefreshToken, St
 
     Optional<RefreshToken> findByTokenHashAndRevokedAtIsNull(String tokenHash);
 
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
     List<RefreshToken> findByUserIdAndRevokedAtIsNull(String userId);
 
-    void deleteByExpiresAtBefore(Instant now);
+    long deleteByExpiresAtBefore(Instant now);
+
+    long deleteByRevokedAtBefore(Instant cutoff);
 }
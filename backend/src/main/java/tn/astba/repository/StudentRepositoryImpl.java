@@ -0,0 +1,28 @@
+package tn.astba.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import tn.astba.domain.Student;
+import tn.astba.search.SearchTokenizer;
+import tn.astba.search.TokenSearch;
+
+import java.util.Comparator;
+import java.util.List;
+
+@RequiredArgsConstructor
+class StudentRepositoryImpl implements StudentRepositoryCustom {
+
+    private static final Comparator<Student> BY_NAME = Comparator
+            .comparing(Student::getLastName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(Student::getFirstName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Page<Student> searchByQuery(String query, Pageable pageable) {
+        return TokenSearch.search(mongoTemplate, Student.class, query, pageable, List.of("firstName", "lastName"),
+                s -> SearchTokenizer.tokens(s.getFirstName(), s.getLastName()), BY_NAME);
+    }
+}
@@ -0,0 +1,14 @@
+package tn.astba.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import tn.astba.domain.TokenRevocation;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends MongoRepository<TokenRevocation, String> {
+
+    List<TokenRevocation> findByNotBeforeAfter(Instant since);
+}
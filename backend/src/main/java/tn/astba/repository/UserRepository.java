@@ -1,9 +1,6 @@
 package tn.astba.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import tn.astba.domain.Role;
 import tn.astba.domain.User;
@@ -12,18 +9,11 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
 
     Optional<User> findByEmail(String email);
 
     boolean existsByEmail(String email);
 
     List<User> findByRolesContaining(Role role);
-
-    @Query("{ $or: [ " +
-           "{ 'firstName': { $regex: ?0, $options: 'i' } }, " +
-           "{ 'lastName': { $regex: ?0, $options: 'i' } }, " +
-           "{ 'email': { $regex: ?0, $options: 'i' } } " +
-           "] }")
-    Page<User> searchByQuery(String query, Pageable pageable);
 }
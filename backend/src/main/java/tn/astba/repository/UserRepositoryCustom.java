@@ -0,0 +1,13 @@
+package tn.astba.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import tn.astba.domain.User;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Prefix search on first name, last name and email, most relevant first.
+     */
+    Page<User> searchByQuery(String query, Pageable pageable);
+}
@@ -0,0 +1,28 @@
+package tn.astba.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import tn.astba.domain.User;
+import tn.astba.search.SearchTokenizer;
+import tn.astba.search.TokenSearch;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+@RequiredArgsConstructor
+class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final Comparator<User> NEWEST_FIRST = Comparator
+            .comparing(User::getCreatedAt, Comparator.nullsLast(Comparator.<Instant>reverseOrder()));
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Page<User> searchByQuery(String query, Pageable pageable) {
+        return TokenSearch.search(mongoTemplate, User.class, query, pageable, List.of("firstName", "lastName", "createdAt"),
+                u -> SearchTokenizer.tokens(u.getFirstName(), u.getLastName()), NEWEST_FIRST);
+    }
+}
@@ -0,0 +1,143 @@
+package tn.astba.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Compressed (radix) trie mapping string keys to sets of values.
+ * <p>
+ * Edges carry whole label segments, so a lookup walks at most one node per
+ * distinct branching point, and a prefix query visits only the subtree of that
+ * prefix, in key order, stopping as soon as enough values are collected.
+ * Not thread-safe: callers synchronize.
+ * </p>
+ */
+public class RadixTrie<V> {
+
+    private static final class Node<V> {
+        String label;
+        final TreeMap<Character, Node<V>> children = new TreeMap<>();
+        final Set<V> values = new LinkedHashSet<>(1);
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private Node<V> root = new Node<>("");
+
+    public void put(String key, V value) {
+        Node<V> node = root;
+        int i = 0;
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            Node<V> child = node.children.get(c);
+            if (child == null) {
+                Node<V> leaf = new Node<>(key.substring(i));
+                leaf.values.add(value);
+                node.children.put(c, leaf);
+                return;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge at the divergence point
+                Node<V> mid = new Node<>(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                mid.children.put(child.label.charAt(0), child);
+                node.children.put(c, mid);
+                child = mid;
+            }
+            node = child;
+            i += common;
+        }
+        node.values.add(value);
+    }
+
+    public void remove(String key, V value) {
+        Deque<Node<V>> path = new ArrayDeque<>();
+        Node<V> node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node<V> child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return;
+            }
+            path.push(node);
+            node = child;
+            i += child.label.length();
+        }
+        if (!node.values.remove(value)) {
+            return;
+        }
+        // Prune empty leaves and merge single-child chains back into one edge
+        while (!path.isEmpty() && node.values.isEmpty()) {
+            Node<V> parent = path.pop();
+            if (node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+            } else if (node.children.size() == 1) {
+                Node<V> only = node.children.firstEntry().getValue();
+                node.values.addAll(only.values);
+                node.children.clear();
+                node.children.putAll(only.children);
+                node.label = node.label + only.label;
+                break;
+            } else {
+                break;
+            }
+            node = parent;
+        }
+    }
+
+    /**
+     * Distinct values whose key starts with {@code prefix}, in key order, at most {@code limit}.
+     */
+    public List<V> prefix(String prefix, int limit, Predicate<V> filter) {
+        Node<V> node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node<V> child = node.children.get(prefix.charAt(i));
+            if (child == null) return List.of();
+            int remaining = prefix.length() - i;
+            if (remaining <= child.label.length()) {
+                if (!child.label.startsWith(prefix.substring(i))) return List.of();
+                node = child;
+                break;
+            }
+            if (!prefix.startsWith(child.label, i)) return List.of();
+            node = child;
+            i += child.label.length();
+        }
+        Set<V> out = new LinkedHashSet<>();
+        collect(node, limit, filter, out);
+        return new ArrayList<>(out);
+    }
+
+    public void clear() {
+        root = new Node<>("");
+    }
+
+    private void collect(Node<V> node, int limit, Predicate<V> filter, Collection<V> out) {
+        for (V v : node.values) {
+            if (out.size() >= limit) return;
+            if (filter.test(v)) out.add(v);
+        }
+        for (Node<V> child : node.children.values()) {
+            if (out.size() >= limit) return;
+            collect(child, limit, filter, out);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int n = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < n && label.charAt(i) == key.charAt(offset + i)) i++;
+        return i;
+    }
+}
@@ -0,0 +1,76 @@
+package tn.astba.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import tn.astba.domain.Student;
+import tn.astba.domain.User;
+
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * One-off computation of {@code searchTokens} for documents saved before they existed.
+ * Idempotent: only documents without the field are touched.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchTokenBackfill {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MongoTemplate mongoTemplate;
+
+    @Order(10)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        backfill(Student.class);
+        backfill(User.class);
+    }
+
+    private <T extends Searchable> void backfill(Class<T> type) {
+        Query missing = Query.query(where(TokenSearch.FIELD).exists(false));
+        missing.fields().include("firstName", "lastName", "email");
+        int count = 0;
+        try (Stream<T> docs = mongoTemplate.stream(missing, type)) {
+            BulkOperations ops = null;
+            int pending = 0;
+            for (T doc : (Iterable<T>) docs::iterator) {
+                if (ops == null) ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+                ops.updateOne(Query.query(where("_id").is(idOf(doc))),
+                        Update.update(TokenSearch.FIELD, SearchTokenizer.tokens(doc.searchableFields())));
+                if (++pending == BATCH_SIZE) {
+                    ops.execute();
+                    count += pending;
+                    ops = null;
+                    pending = 0;
+                }
+            }
+            if (ops != null) {
+                ops.execute();
+                count += pending;
+            }
+        } catch (Exception e) {
+            log.warn("Indexation de recherche impossible pour {}: {}", type.getSimpleName(), e.getMessage());
+            return;
+        }
+        if (count > 0) {
+            log.info("Tokens de recherche calculés: {} {}", count, type.getSimpleName());
+        }
+    }
+
+    private static Object idOf(Searchable doc) {
+        if (doc instanceof Student s) return s.getId();
+        if (doc instanceof User u) return u.getId();
+        throw new IllegalArgumentException("Type non indexable: " + doc.getClass());
+    }
+}
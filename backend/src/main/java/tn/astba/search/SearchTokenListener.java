@@ -0,0 +1,19 @@
+package tn.astba.search;
+
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes {@code searchTokens} on every save, whatever the code path.
+ */
+@Component
+public class SearchTokenListener extends AbstractMongoEventListener<Object> {
+
+    @Override
+    public void onBeforeConvert(BeforeConvertEvent<Object> event) {
+        if (event.getSource() instanceof Searchable searchable) {
+            searchable.setSearchTokens(SearchTokenizer.tokens(searchable.searchableFields()));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package tn.astba.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns names and emails into normalized search tokens.
+ * <p>
+ * Latin text is lower-cased and accent-folded ("Hélène" -> "helene"). Arabic text is
+ * stripped of diacritics and tatweel, its letter variants are unified (أ إ آ -> ا, ة -> ه,
+ * ى -> ي), and a Latin transliteration in the usual Tunisian/French spelling is added
+ * ("محمد" -> "محمد", "mhmd"), so a name typed in either script can be found.
+ * Doubled Latin letters also get a collapsed variant ("mohammed" -> "mohamed").
+ * </p>
+ */
+public final class SearchTokenizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Map<Character, String> ARABIC_TO_LATIN = Map.ofEntries(
+            Map.entry('ا', "a"), Map.entry('ب', "b"), Map.entry('ت', "t"), Map.entry('ث', "th"),
+            Map.entry('ج', "j"), Map.entry('ح', "h"), Map.entry('خ', "kh"), Map.entry('د', "d"),
+            Map.entry('ذ', "dh"), Map.entry('ر', "r"), Map.entry('ز', "z"), Map.entry('س', "s"),
+            Map.entry('ش', "ch"), Map.entry('ص', "s"), Map.entry('ض', "dh"), Map.entry('ط', "t"),
+            Map.entry('ظ', "dh"), Map.entry('ع', "a"), Map.entry('غ', "gh"), Map.entry('ف', "f"),
+            Map.entry('ق', "k"), Map.entry('ك', "k"), Map.entry('ل', "l"), Map.entry('م', "m"),
+            Map.entry('ن', "n"), Map.entry('ه', "h"), Map.entry('و', "ou"), Map.entry('ي', "i"),
+            Map.entry('ء', ""), Map.entry('پ', "p"), Map.entry('ڤ', "v"), Map.entry('گ', "g"));
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * All distinct tokens (and their variants) of the given fields, in field order.
+     */
+    public static List<String> tokens(String... fields) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String field : fields) {
+            for (String word : words(field)) {
+                tokens.addAll(variants(word));
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Normalized words of a free-text query; each must prefix-match one of the stored tokens.
+     */
+    public static List<String> words(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> words = new ArrayList<>();
+        for (String part : SEPARATORS.split(fold(text))) {
+            if (!part.isEmpty()) words.add(part);
+        }
+        return words;
+    }
+
+    /**
+     * The forms a single normalized word is indexed (or looked up) under.
+     */
+    public static List<String> variants(String word) {
+        Set<String> variants = new LinkedHashSet<>();
+        variants.add(word);
+        if (isArabic(word)) {
+            String latin = transliterate(word);
+            if (!latin.isEmpty()) variants.add(latin);
+        } else {
+            variants.add(collapseDoubles(word));
+        }
+        return new ArrayList<>(variants);
+    }
+
+    static String fold(String text) {
+        String s = text.toLowerCase(Locale.ROOT)
+                .replace("œ", "oe").replace("æ", "ae").replace("ß", "ss")
+                .replace("ـ", "");
+        s = COMBINING_MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+        // NFD decomposes آ / أ / إ into ا + mark, ؤ into و + mark, ئ into ي + mark
+        return s.replace('ة', 'ه').replace('ى', 'ي');
+    }
+
+    static String transliterate(String arabicWord) {
+        StringBuilder sb = new StringBuilder(arabicWord.length() + 4);
+        for (int i = 0; i < arabicWord.length(); i++) {
+            char c = arabicWord.charAt(i);
+            String latin = ARABIC_TO_LATIN.get(c);
+            sb.append(latin != null ? latin : (Character.isLetterOrDigit(c) && c < 0x0600 ? String.valueOf(c) : ""));
+        }
+        return sb.toString();
+    }
+
+    private static String collapseDoubles(String word) {
+        StringBuilder sb = new StringBuilder(word.length());
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (i == 0 || c != word.charAt(i - 1) || Character.isDigit(c)) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isArabic(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.UnicodeBlock.of(word.charAt(i)) == Character.UnicodeBlock.ARABIC) return true;
+        }
+        return false;
+    }
+}
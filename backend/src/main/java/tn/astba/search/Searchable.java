@@ -0,0 +1,20 @@
+package tn.astba.search;
+
+import java.util.List;
+
+/**
+ * Document carrying the {@code searchTokens} array used by {@link TokenSearch}.
+ */
+public interface Searchable {
+
+    String getId();
+
+    List<String> getSearchTokens();
+
+    void setSearchTokens(List<String> searchTokens);
+
+    /**
+     * Raw field values the tokens are derived from, most relevant first.
+     */
+    String[] searchableFields();
+}
@@ -0,0 +1,135 @@
+package tn.astba.search;
+
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Prefix search over the indexed {@code searchTokens} array of a collection.
+ * <p>
+ * Every query word must prefix-match a token. Each word becomes an {@code $elemMatch}
+ * range {@code [word, word + U+FFFF)} on the multikey index, so the lookup is an index
+ * range scan whatever the collection size, and user input never reaches a regex.
+ * The first {@link #MAX_CANDIDATES} matches in the {@link Pageable} sort are read with a
+ * projection (id, tokens and the ranking fields) and ranked in memory: exact matches over
+ * prefixes, name tokens over the other fields; ties keep the caller's order. Only the
+ * documents of the requested page are then loaded in full. When more documents match,
+ * the total comes from a count and the pages past the ranked window list the remaining
+ * matches in the {@link Pageable} sort, so every match stays reachable exactly once.
+ * </p>
+ */
+public final class TokenSearch {
+
+    public static final String FIELD = "searchTokens";
+    public static final int MAX_CANDIDATES = 1000;
+
+    private TokenSearch() {
+    }
+
+    /**
+     * @param rankFields fields read by {@code nameTokens} and {@code tieBreak}, the only ones
+     *                   (with the id, the tokens and the sort keys) loaded for ranking
+     * @param nameTokens tokens ranked higher than the rest (e.g. first and last name)
+     * @param tieBreak   order among equally relevant results
+     */
+    public static <T extends Searchable> Page<T> search(MongoTemplate mongoTemplate, Class<T> type, String query,
+                                                        Pageable pageable, List<String> rankFields,
+                                                        Function<T, List<String>> nameTokens, Comparator<T> tieBreak) {
+        List<String> words = SearchTokenizer.words(query);
+        if (words.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        List<Document> clauses = new ArrayList<>();
+        for (String word : words) {
+            List<Document> alternatives = new ArrayList<>();
+            for (String variant : SearchTokenizer.variants(word)) {
+                alternatives.add(new Document(FIELD, new Document("$elemMatch",
+                        new Document("$gte", variant).append("$lt", variant + '\uffff'))));
+            }
+            clauses.add(alternatives.size() == 1 ? alternatives.get(0) : new Document("$or", alternatives));
+        }
+        Document filter = new Document("$and", clauses);
+
+        Document projection = new Document("_id", 1).append(FIELD, 1);
+        rankFields.forEach(field -> projection.append(field, 1));
+        pageable.getSort().forEach(order -> projection.append(order.getProperty(), 1));
+        BasicQuery candidatesQuery = new BasicQuery(filter, projection);
+        candidatesQuery.with(pageable.getSort()).limit(MAX_CANDIDATES);
+        List<T> candidates = mongoTemplate.find(candidatesQuery, type);
+        boolean truncated = candidates.size() >= MAX_CANDIDATES;
+        long total = truncated ? mongoTemplate.count(new BasicQuery(filter), type) : candidates.size();
+
+        Map<T, Double> scores = new IdentityHashMap<>();
+        for (T candidate : candidates) {
+            scores.put(candidate, score(words, nameTokens.apply(candidate), tokensOf(candidate)));
+        }
+        candidates.sort(Comparator.<T, Double>comparing(scores::get).reversed().thenComparing(tieBreak));
+
+        long offset = pageable.getOffset();
+        int from = (int) Math.min(offset, candidates.size());
+        int to = (int) Math.min(offset + pageable.getPageSize(), candidates.size());
+        List<T> content = new ArrayList<>(load(mongoTemplate, type, candidates.subList(from, to)));
+        if (truncated && content.size() < pageable.getPageSize()) {
+            // Past the ranked window: the remaining matches, in the requested sort
+            BasicQuery rest = new BasicQuery(filter);
+            rest.with(pageable.getSort())
+                    .skip(Math.max(offset, MAX_CANDIDATES))
+                    .limit(pageable.getPageSize() - content.size());
+            content.addAll(mongoTemplate.find(rest, type));
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /** Full documents of projected candidates, in the candidates' order. */
+    private static <T extends Searchable> List<T> load(MongoTemplate mongoTemplate, Class<T> type, List<T> candidates) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        List<String> ids = candidates.stream().map(Searchable::getId).toList();
+        Map<String, T> byId = new HashMap<>();
+        mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), type).forEach(doc -> byId.put(doc.getId(), doc));
+        // A document deleted in between is left out of the page
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    private static double score(List<String> words, List<String> names, List<String> all) {
+        double score = 0;
+        for (String word : words) {
+            double best = 0;
+            for (String variant : SearchTokenizer.variants(word)) {
+                best = Math.max(best, match(variant, names, 4, 2));
+                best = Math.max(best, match(variant, all, 1.5, 1));
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private static double match(String word, List<String> tokens, double exact, double prefix) {
+        double best = 0;
+        for (String token : tokens) {
+            if (token.equals(word)) return exact;
+            if (token.startsWith(word)) best = prefix;
+        }
+        return best;
+    }
+
+    private static List<String> tokensOf(Searchable candidate) {
+        return candidate.getSearchTokens() != null ? candidate.getSearchTokens() : List.of();
+    }
+}
@@ -0,0 +1,198 @@
+package tn.astba.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.astba.exception.TooManyRequestsException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket throttling of the public authentication endpoints, per client IP
+ * and, for login/register, per email.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding its "theoretical arrival time"
+ * (GCRA): a permit advances it by {@code 60s / perMinute}; a request is refused when
+ * that would push it more than one full minute of burst ahead of now. Buckets live in a
+ * {@link ConcurrentHashMap} and are updated by CAS, so the hot path takes no lock.
+ * A bucket whose arrival time is in the past is full again and equivalent to a missing
+ * one, which is what the periodic eviction removes.
+ * </p>
+ */
+@Slf4j
+@Component
+public class AuthRateLimiter implements MeterBinder {
+
+    public static final String LOGIN = "/api/auth/login";
+    public static final String REGISTER = "/api/auth/register";
+    public static final String REFRESH = "/api/auth/refresh";
+    public static final String OAUTH2_EXCHANGE = "/api/auth/oauth2-exchange";
+
+    private final Map<String, Limit> ipLimits = new LinkedHashMap<>();
+    private final Map<String, Limit> emailLimits = new LinkedHashMap<>();
+    private final boolean enabled;
+    private final int maxKeysPerLimit;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public AuthRateLimiter(@Value("${astba.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${astba.rate-limit.max-keys:100000}") int maxKeysPerLimit,
+                           @Value("${astba.rate-limit.login.ip-per-minute:20}") int loginPerIp,
+                           @Value("${astba.rate-limit.login.email-per-minute:5}") int loginPerEmail,
+                           @Value("${astba.rate-limit.register.ip-per-minute:5}") int registerPerIp,
+                           @Value("${astba.rate-limit.register.email-per-minute:3}") int registerPerEmail,
+                           @Value("${astba.rate-limit.refresh.ip-per-minute:60}") int refreshPerIp,
+                           @Value("${astba.rate-limit.oauth2-exchange.ip-per-minute:20}") int exchangePerIp) {
+        this(enabled, maxKeysPerLimit, System::nanoTime);
+        addIpLimit(LOGIN, loginPerIp);
+        addIpLimit(REGISTER, registerPerIp);
+        addIpLimit(REFRESH, refreshPerIp);
+        addIpLimit(OAUTH2_EXCHANGE, exchangePerIp);
+        addEmailLimit(LOGIN, loginPerEmail);
+        addEmailLimit(REGISTER, registerPerEmail);
+    }
+
+    AuthRateLimiter(boolean enabled, int maxKeysPerLimit, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.maxKeysPerLimit = maxKeysPerLimit;
+        this.nanoClock = nanoClock;
+    }
+
+    void addIpLimit(String path, int perMinute) {
+        if (perMinute > 0) ipLimits.put(path, new Limit(path, "ip", perMinute));
+    }
+
+    void addEmailLimit(String path, int perMinute) {
+        if (perMinute > 0) emailLimits.put(path, new Limit(path, "email", perMinute));
+    }
+
+    /**
+     * True if requests to this path are throttled per IP.
+     */
+    public boolean isLimited(String path) {
+        return enabled && ipLimits.containsKey(path);
+    }
+
+    /**
+     * Take one permit from the IP bucket of the endpoint.
+     *
+     * @return 0 if allowed, otherwise the number of seconds to wait
+     */
+    public long tryAcquireIp(String path, String ip) {
+        return tryAcquire(ipLimits.get(path), ip);
+    }
+
+    /**
+     * Take one permit from the email bucket of the endpoint, throwing a 429 if empty.
+     * Called once the body has been parsed, since the email is not known to the filter.
+     */
+    public void acquireEmail(String path, String email) {
+        long retryAfter = tryAcquire(emailLimits.get(path), email);
+        if (retryAfter > 0) {
+            log.warn("Limite de tentatives atteinte pour {}: email={}", path, email);
+            throw new TooManyRequestsException(
+                    "Trop de tentatives pour ce compte. Réessayez dans " + retryAfter + " secondes.", retryAfter);
+        }
+    }
+
+    private long tryAcquire(Limit limit, String key) {
+        if (!enabled || limit == null || key == null) {
+            return 0;
+        }
+        long now = nanoClock.getAsLong();
+        long waitNanos = limit.tryAcquire(key, now, maxKeysPerLimit);
+        return waitNanos <= 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    /**
+     * Drop buckets that have refilled completely; they carry no state.
+     */
+    @Scheduled(fixedDelayString = "${astba.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        ipLimits.values().forEach(l -> l.evictIdle(now));
+        emailLimits.values().forEach(l -> l.evictIdle(now));
+    }
+
+    int trackedKeys() {
+        int n = 0;
+        for (Limit l : ipLimits.values()) n += l.buckets.size();
+        for (Limit l : emailLimits.values()) n += l.buckets.size();
+        return n;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Limit limit : ipLimits.values()) limit.bindTo(registry);
+        for (Limit limit : emailLimits.values()) limit.bindTo(registry);
+        Gauge.builder("astba.auth.rate_limit.keys", this, AuthRateLimiter::trackedKeys)
+                .register(registry);
+    }
+
+    private static final class Limit {
+
+        private final String path;
+        private final String dimension;
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final LongAdder rejected = new LongAdder();
+
+        Limit(String path, String dimension, int perMinute) {
+            this.path = path;
+            this.dimension = dimension;
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            this.burstNanos = intervalNanos * perMinute;
+        }
+
+        /**
+         * @return 0 if a permit was taken, otherwise the nanoseconds until one is available
+         */
+        long tryAcquire(String key, long now, int maxKeys) {
+            AtomicLong tat = buckets.get(key);
+            if (tat == null) {
+                if (buckets.size() >= maxKeys) {
+                    evictIdle(now);
+                }
+                tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+            }
+            while (true) {
+                long current = tat.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long excess = next - now - burstNanos;
+                if (excess > 0) {
+                    rejected.increment();
+                    return excess;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        // A concurrent acquire on a bucket being evicted is lost; the bucket was full anyway.
+        void evictIdle(long now) {
+            buckets.values().removeIf(tat -> tat.get() - now <= 0);
+        }
+
+        void bindTo(MeterRegistry registry) {
+            FunctionCounter.builder("astba.auth.rate_limited", rejected, LongAdder::sum)
+                    .tag("endpoint", path)
+                    .tag("key", dimension)
+                    .description("Requests refused by the authentication rate limiter")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package tn.astba.security;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Node-local code store. Expiry uses a hashed timing wheel: each code is also filed in
+ * the slot of the second it expires, and moving the wheel forward only visits the slots
+ * of the elapsed seconds, instead of scanning every stored code on each call.
+ * A code is expired from its expiry tick on, both for {@link #exchange} and for the wheel.
+ */
+@Component
+@ConditionalOnProperty(name = "astba.oauth2.code-store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOAuth2CodeStore implements OAuth2CodeStore {
+
+    private static final int WHEEL_SIZE = 64; // > CODE_TTL_SECONDS, so a code never waits a full turn
+    private static final long TICK_MILLIS = 1000;
+
+    private record StoredTokens(String accessToken, String refreshToken, long expiresAtTick) {}
+
+    private final Map<String, StoredTokens> store = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Set<String>[] wheel = new Set[WHEEL_SIZE];
+    private final LongSupplier clockMillis;
+    private long currentTick;
+
+    public InMemoryOAuth2CodeStore() {
+        this(System::currentTimeMillis);
+    }
+
+    InMemoryOAuth2CodeStore(LongSupplier clockMillis) {
+        this.clockMillis = clockMillis;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new HashSet<>();
+        }
+        this.currentTick = tick();
+    }
+
+    @Override
+    public String generateCode(String accessToken, String refreshToken) {
+        String code = UUID.randomUUID().toString();
+        long expiresAtTick = tick() + TimeUnit.SECONDS.toMillis(CODE_TTL_SECONDS) / TICK_MILLIS;
+        store.put(code, new StoredTokens(accessToken, refreshToken, expiresAtTick));
+        synchronized (wheel) {
+            advance();
+            wheel[(int) (expiresAtTick % WHEEL_SIZE)].add(code);
+        }
+        return code;
+    }
+
+    @Override
+    public TokenPair exchange(String code) {
+        StoredTokens tokens = store.remove(code);
+        // The wheel slot keeps the code until its turn comes; removing it there is a no-op
+        if (tokens == null || isExpired(tokens, tick())) {
+            return null;
+        }
+        return new TokenPair(tokens.accessToken(), tokens.refreshToken());
+    }
+
+    int size() {
+        return store.size();
+    }
+
+    /**
+     * Clear the slots of every tick elapsed since the last call (at most one full turn).
+     * Must be called while holding the wheel monitor.
+     */
+    private void advance() {
+        long now = tick();
+        long from = Math.max(currentTick + 1, now - WHEEL_SIZE + 1);
+        for (long t = from; t <= now; t++) {
+            // Codes still alive (or already exchanged and absent) leave the slot only once gone
+            wheel[(int) (t % WHEEL_SIZE)].removeIf(code ->
+                    store.computeIfPresent(code, (k, v) -> isExpired(v, now) ? null : v) == null);
+        }
+        currentTick = Math.max(currentTick, now);
+    }
+
+    private static boolean isExpired(StoredTokens tokens, long now) {
+        return now >= tokens.expiresAtTick();
+    }
+
+    private long tick() {
+        return clockMillis.getAsLong() / TICK_MILLIS;
+    }
+}
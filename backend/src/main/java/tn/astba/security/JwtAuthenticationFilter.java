@@ -8,15 +8,11 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import tn.astba.domain.Role;
 
 import java.io.IOException;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * JWT authentication filter. Reads token from:
@@ -29,23 +25,26 @@ import java.util.stream.Collectors;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenRevocationList revocationList;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                      FilterChain filterChain) throws ServletException, IOException {
         String token = extractToken(request);
 
-        if (token != null && jwtService.validateToken(token)) {
+        if (token != null && !token.isBlank()) {
             try {
-                String userId = jwtService.getUserIdFromToken(token);
-                Set<Role> roles = jwtService.getRolesFromToken(token);
-
-                var authorities = roles.stream()
-                        .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
-                        .collect(Collectors.toList());
-
-                var auth = new UsernamePasswordAuthenticationToken(userId, null, authorities);
-                SecurityContextHolder.getContext().setAuthentication(auth);
+                VerifiedToken verified = resolve(token);
+                if (verified != null && revocationList.isRevoked(verified.userId(), verified.issuedAtMillis())) {
+                    log.debug("JWT révoqué: userId={}", verified.userId());
+                    verified = null;
+                }
+                if (verified != null) {
+                    var auth = new UsernamePasswordAuthenticationToken(
+                            verified.userId(), null, verified.authorities());
+                    SecurityContextHolder.getContext().setAuthentication(auth);
+                }
             } catch (Exception e) {
                 log.debug("Erreur lors de l'extraction des données JWT: {}", e.getMessage());
             }
@@ -54,6 +53,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Cache first; on a miss verify the signature once and remember the result until {@code exp}.
+     */
+    private VerifiedToken resolve(String token) {
+        VerifiedToken verified = tokenCache.get(token);
+        if (verified == null) {
+            verified = jwtService.verify(token);
+            if (verified != null) {
+                tokenCache.put(token, verified);
+            }
+        }
+        return verified;
+    }
+
     private String extractToken(HttpServletRequest request) {
         // 1) Header Authorization: Bearer <token>
         String header = request.getHeader("Authorization");
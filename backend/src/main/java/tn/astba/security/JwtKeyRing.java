@@ -0,0 +1,209 @@
+package tn.astba.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.astba.domain.JwtSigningKey;
+import tn.astba.repository.JwtSigningKeyRepository;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ES256 key ring for access tokens.
+ * <p>
+ * Each node signs with its own key pair, regenerated every {@code astba.jwt.keys.rotation-hours}.
+ * Public keys are published to {@code jwt_signing_keys} and stay verifiable for one access
+ * token TTL after the key stops signing, so rotation never invalidates a live token.
+ * Verification looks the {@code kid} up in a local map; unknown kids (keys of other nodes,
+ * or created since the last lookup) are loaded from Mongo, at most once per reload interval.
+ * The JWKS is served from the same map, so the public endpoint never queries Mongo more often.
+ * </p>
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    static final String ALGORITHM = "ES256";
+    private static final long CLOCK_SKEW_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long RELOAD_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Key used to sign new tokens on this node */
+    record SigningKey(String kid, PrivateKey privateKey, long activeUntilMillis) {}
+
+    private record PublishedKey(PublicKey publicKey, long expiresAtMillis) {}
+
+    private final JwtSigningKeyRepository repository; // null: single-process ring (tests)
+    private final long rotationMillis;
+    private final long accessTtlMillis;
+
+    private final Map<String, PublishedKey> publicKeys = new ConcurrentHashMap<>();
+    private final Object reloadLock = new Object();
+    private volatile SigningKey current;
+    private volatile long lastReloadMillis;
+
+    @Autowired
+    public JwtKeyRing(JwtSigningKeyRepository repository,
+                      @Value("${astba.jwt.keys.rotation-hours:24}") long rotationHours,
+                      @Value("${astba.jwt.access-ttl-min:15}") long accessTtlMin) {
+        this.repository = repository;
+        this.rotationMillis = TimeUnit.HOURS.toMillis(rotationHours);
+        this.accessTtlMillis = TimeUnit.MINUTES.toMillis(accessTtlMin);
+    }
+
+    /**
+     * Ring that keeps its keys in memory only.
+     */
+    static JwtKeyRing local(long accessTtlMin) {
+        JwtKeyRing ring = new JwtKeyRing(null, 24, accessTtlMin);
+        ring.init();
+        return ring;
+    }
+
+    @PostConstruct
+    void init() {
+        rotate();
+    }
+
+    /**
+     * Current signing key, rotated first if its signing period is over.
+     */
+    SigningKey signingKey() {
+        SigningKey key = current;
+        if (System.currentTimeMillis() >= key.activeUntilMillis()) {
+            synchronized (this) {
+                key = current;
+                if (System.currentTimeMillis() >= key.activeUntilMillis()) {
+                    key = rotate();
+                }
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Public key for a {@code kid}, or null if unknown or past its verification window.
+     */
+    PublicKey publicKey(String kid) {
+        long now = System.currentTimeMillis();
+        PublishedKey key = publicKeys.get(kid);
+        if (key == null) {
+            reloadIfDue(now);
+            key = publicKeys.get(kid);
+        }
+        return key != null && now < key.expiresAtMillis() ? key.publicKey() : null;
+    }
+
+    /**
+     * Every public key still verifying live tokens, cluster-wide, as JWKs.
+     */
+    public List<Map<String, Object>> jwks() {
+        long now = System.currentTimeMillis();
+        reloadIfDue(now);
+        List<Map<String, Object>> keys = new ArrayList<>();
+        publicKeys.forEach((kid, key) -> {
+            if (now < key.expiresAtMillis()) {
+                keys.add(Jwks.builder().key((ECPublicKey) key.publicKey())
+                        .id(kid)
+                        .algorithm(ALGORITHM)
+                        .publicKeyUse("sig")
+                        .build());
+            }
+        });
+        return keys;
+    }
+
+    /**
+     * Rotate when due, pick up keys published by other nodes and forget keys no token can use any more.
+     */
+    @Scheduled(fixedDelayString = "${astba.jwt.keys.check-interval-ms:60000}")
+    public void maintain() {
+        signingKey();
+        long now = System.currentTimeMillis();
+        reloadIfDue(now);
+        publicKeys.values().removeIf(k -> now >= k.expiresAtMillis());
+    }
+
+    private synchronized SigningKey rotate() {
+        KeyPair pair = Jwts.SIG.ES256.keyPair().build();
+        byte[] id = new byte[12];
+        RANDOM.nextBytes(id);
+        String kid = Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+
+        long now = System.currentTimeMillis();
+        long activeUntil = now + rotationMillis;
+        long expiresAt = activeUntil + accessTtlMillis + CLOCK_SKEW_MILLIS;
+        publicKeys.put(kid, new PublishedKey(pair.getPublic(), expiresAt));
+
+        if (repository != null) {
+            try {
+                repository.save(JwtSigningKey.builder()
+                        .kid(kid)
+                        .algorithm(ALGORITHM)
+                        .publicKey(Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()))
+                        .createdAt(Instant.ofEpochMilli(now))
+                        .activeUntil(Instant.ofEpochMilli(activeUntil))
+                        .expiresAt(Instant.ofEpochMilli(expiresAt))
+                        .build());
+            } catch (Exception e) {
+                // Tokens from this node then only verify locally until the next rotation
+                log.warn("Publication de la clé JWT {} impossible: {}", kid, e.getMessage());
+            }
+        }
+
+        current = new SigningKey(kid, pair.getPrivate(), activeUntil);
+        log.info("Nouvelle clé de signature JWT: kid={}, active jusqu'à {}", kid, Instant.ofEpochMilli(activeUntil));
+        return current;
+    }
+
+    /**
+     * Load the published keys unless another caller did within the reload interval.
+     * Concurrent callers wait for the reload in progress instead of starting their own.
+     */
+    private void reloadIfDue(long now) {
+        if (repository == null || now - lastReloadMillis < RELOAD_INTERVAL_MILLIS) {
+            return;
+        }
+        synchronized (reloadLock) {
+            if (now - lastReloadMillis >= RELOAD_INTERVAL_MILLIS) {
+                reload(now);
+            }
+        }
+    }
+
+    private void reload(long now) {
+        lastReloadMillis = now;
+        try {
+            Collection<JwtSigningKey> published = repository.findByExpiresAtAfter(Instant.ofEpochMilli(now));
+            KeyFactory factory = KeyFactory.getInstance("EC");
+            for (JwtSigningKey k : published) {
+                if (publicKeys.containsKey(k.getKid())) continue;
+                PublicKey publicKey = factory.generatePublic(
+                        new X509EncodedKeySpec(Base64.getDecoder().decode(k.getPublicKey())));
+                publicKeys.put(k.getKid(), new PublishedKey(publicKey, k.getExpiresAt().toEpochMilli()));
+            }
+        } catch (GeneralSecurityException | RuntimeException e) {
+            log.warn("Chargement des clés JWT publiées impossible: {}", e.getMessage());
+        }
+    }
+}
@@ -3,70 +3,91 @@ package tn.astba.security;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import tn.astba.domain.Role;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
+/**
+ * Access tokens are signed with ES256 keys from {@link JwtKeyRing} (header {@code kid}),
+ * so anyone can verify them from {@code /.well-known/jwks.json} without a shared secret.
+ * Refresh tokens are only ever read by this service and are backed by a
+ * {@code refresh_tokens} record, so they keep the HS512 secret.
+ */
 @Slf4j
 @Service
 public class JwtService {
 
-    private final SecretKey signingKey;
+    private final SecretKey refreshSigningKey;
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
     private final long accessTtlMillis;
     private final long refreshTtlMillis;
 
+    @Autowired
     public JwtService(
             @Value("${astba.jwt.secret}") String secret,
             @Value("${astba.jwt.access-ttl-min:15}") long accessTtlMin,
-            @Value("${astba.jwt.refresh-ttl-days:36500}") long refreshTtlDays) {
+            @Value("${astba.jwt.refresh-ttl-days:36500}") long refreshTtlDays,
+            JwtKeyRing keyRing) {
         // Pad secret to at least 64 bytes for HS512
         String padded = secret;
         while (padded.getBytes(StandardCharsets.UTF_8).length < 64) {
             padded = padded + secret;
         }
-        this.signingKey = Keys.hmacShaKeyFor(padded.getBytes(StandardCharsets.UTF_8));
+        this.refreshSigningKey = Keys.hmacShaKeyFor(padded.getBytes(StandardCharsets.UTF_8));
+        this.keyRing = keyRing;
+        this.parser = Jwts.parser().keyLocator(new KidLocator()).build();
         this.accessTtlMillis = accessTtlMin * 60 * 1000;
         this.refreshTtlMillis = refreshTtlDays * 24 * 60 * 60 * 1000;
     }
 
+    /**
+     * Standalone instance with an in-memory key ring.
+     */
+    public JwtService(String secret, long accessTtlMin, long refreshTtlDays) {
+        this(secret, accessTtlMin, refreshTtlDays, JwtKeyRing.local(accessTtlMin));
+    }
+
     public String generateAccessToken(String userId, String email, Set<Role> roles) {
         Instant now = Instant.now();
         String rolesStr = roles.stream().map(Role::name).collect(Collectors.joining(","));
+        JwtKeyRing.SigningKey key = keyRing.signingKey();
 
         return Jwts.builder()
+                .header().keyId(key.kid()).and()
                 .subject(userId)
                 .claim("email", email)
                 .claim("roles", rolesStr)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(now.plusMillis(accessTtlMillis)))
-                .signWith(signingKey)
+                .signWith(key.privateKey(), Jwts.SIG.ES256)
                 .compact();
     }
 
     public String generateRefreshToken(String userId) {
         Instant now = Instant.now();
         return Jwts.builder()
+                .id(UUID.randomUUID().toString()) // unique even for two logins in the same second
                 .subject(userId)
                 .claim("type", "refresh")
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(now.plusMillis(refreshTtlMillis)))
-                .signWith(signingKey)
+                .signWith(refreshSigningKey)
                 .compact();
     }
 
     public Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(signingKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     public boolean validateToken(String token) {
@@ -84,12 +105,41 @@ public class JwtService {
         return false;
     }
 
+    /**
+     * Verify the signature and expiry once and extract everything the authentication
+     * filter needs. Returns null if the token is invalid or is not an access token.
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            Jws<Claims> jws = parser.parseSignedClaims(token);
+            if (jws.getHeader().getKeyId() == null) {
+                log.debug("JWT sans kid refusé comme token d'accès");
+                return null;
+            }
+            Claims claims = jws.getPayload();
+            long issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0L;
+            return VerifiedToken.of(claims.getSubject(),
+                    parseRoles(claims.get("roles", String.class)),
+                    issuedAt,
+                    claims.getExpiration().getTime());
+        } catch (ExpiredJwtException e) {
+            log.debug("JWT expiré");
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("JWT invalide: {}", e.getMessage());
+        }
+        return null;
+    }
+
     public String getUserIdFromToken(String token) {
         return parseToken(token).getSubject();
     }
 
     public Set<Role> getRolesFromToken(String token) {
-        String rolesStr = parseToken(token).get("roles", String.class);
+        return parseRoles(parseToken(token).get("roles", String.class));
+    }
+
+    private Set<Role> parseRoles(String rolesStr) {
         if (rolesStr == null || rolesStr.isBlank()) return Set.of();
         return Set.of(rolesStr.split(",")).stream()
                 .map(String::trim)
@@ -98,6 +148,25 @@ public class JwtService {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Access tokens carry a {@code kid} and verify with the matching ring public key;
+     * tokens without one are refresh tokens and verify with the HMAC secret.
+     */
+    private class KidLocator extends LocatorAdapter<Key> {
+        @Override
+        protected Key locate(JwsHeader header) {
+            String kid = header.getKeyId();
+            if (kid == null) {
+                return refreshSigningKey;
+            }
+            Key key = keyRing.publicKey(kid);
+            if (key == null) {
+                throw new UnsupportedJwtException("Unknown or expired signing key: " + kid);
+            }
+            return key;
+        }
+    }
+
     public long getAccessTtlMillis() {
         return accessTtlMillis;
     }
@@ -0,0 +1,63 @@
+package tn.astba.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import tn.astba.domain.OAuth2Code;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Code store shared by every node through the {@code oauth2_codes} collection.
+ * Exchange is a single atomic {@code findAndDelete}, so a code can be redeemed once
+ * cluster-wide; expired codes are purged by the TTL index on {@code expiresAt}.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "astba.oauth2.code-store", havingValue = "mongo")
+public class MongoOAuth2CodeStore implements OAuth2CodeStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public String generateCode(String accessToken, String refreshToken) {
+        String code = UUID.randomUUID().toString();
+        mongoTemplate.insert(OAuth2Code.builder()
+                .codeHash(hash(code))
+                .accessToken(accessToken)
+                .refreshToken(refreshToken)
+                .expiresAt(Instant.now().plusSeconds(CODE_TTL_SECONDS))
+                .build());
+        return code;
+    }
+
+    @Override
+    public TokenPair exchange(String code) {
+        if (code == null || code.isBlank()) {
+            return null;
+        }
+        // The TTL monitor runs about once a minute, so expiry is also checked here
+        OAuth2Code stored = mongoTemplate.findAndRemove(
+                Query.query(where("_id").is(hash(code)).and("expiresAt").gt(Instant.now())),
+                OAuth2Code.class);
+        return stored == null ? null : new TokenPair(stored.getAccessToken(), stored.getRefreshToken());
+    }
+
+    private static String hash(String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(code.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package tn.astba.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.astba.domain.TokenRevocation;
+import tn.astba.repository.TokenRevocationRepository;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory per-user revocation cut-off: access tokens of a user issued before
+ * the stored instant are rejected by {@link JwtAuthenticationFilter}.
+ * <p>
+ * Writes go to Mongo ({@code token_revocations}) and to the local map at once.
+ * Other nodes pick them up on the next periodic sync, so a revocation is effective
+ * cluster-wide after at most {@code astba.jwt.revocation.sync-interval-ms}.
+ * A cut-off only matters while tokens issued before it can still be alive, so entries
+ * older than the access token TTL are neither loaded nor kept.
+ * </p>
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private final TokenRevocationRepository revocationRepository;
+    private final long accessTtlMillis;
+
+    /** userId -> epoch millis before which tokens are invalid */
+    private final Map<String, Long> notBefore = new ConcurrentHashMap<>();
+
+    public TokenRevocationList(TokenRevocationRepository revocationRepository, JwtService jwtService) {
+        this.revocationRepository = revocationRepository;
+        this.accessTtlMillis = jwtService.getAccessTtlMillis();
+    }
+
+    /**
+     * O(1) check done on every authenticated request.
+     */
+    public boolean isRevoked(String userId, long issuedAtMillis) {
+        Long cutoff = notBefore.get(userId);
+        return cutoff != null && issuedAtMillis < cutoff;
+    }
+
+    /**
+     * Invalidate every access token issued to the user so far.
+     * <p>
+     * JWT {@code iat} has second precision, so the cut-off is truncated to the second:
+     * a token issued right after the revocation (e.g. on refresh with the new roles)
+     * must not be rejected.
+     * </p>
+     */
+    public void revokeUser(String userId) {
+        Instant cutoff = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        notBefore.merge(userId, cutoff.toEpochMilli(), Math::max);
+        revocationRepository.save(TokenRevocation.builder()
+                .userId(userId)
+                .notBefore(cutoff)
+                .build());
+        log.info("Tokens d'accès révoqués: userId={}, avant={}", userId, cutoff);
+    }
+
+    /**
+     * Reload the still-relevant cut-offs written by any node.
+     */
+    @Scheduled(fixedDelayString = "${astba.jwt.revocation.sync-interval-ms:15000}")
+    public void sync() {
+        long horizon = System.currentTimeMillis() - accessTtlMillis;
+        try {
+            for (TokenRevocation r : revocationRepository.findByNotBeforeAfter(Instant.ofEpochMilli(horizon))) {
+                notBefore.merge(r.getUserId(), r.getNotBefore().toEpochMilli(), Math::max);
+            }
+        } catch (Exception e) {
+            log.warn("Synchronisation des révocations impossible: {}", e.getMessage());
+        }
+        notBefore.values().removeIf(cutoff -> cutoff < horizon);
+    }
+
+    public int size() {
+        return notBefore.size();
+    }
+}
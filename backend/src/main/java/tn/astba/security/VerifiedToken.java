@@ -0,0 +1,30 @@
+package tn.astba.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import tn.astba.domain.Role;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Authentication data extracted from a successfully verified access token.
+ * Immutable, so a single instance can be shared by every request carrying the same token.
+ */
+public record VerifiedToken(String userId,
+                            Set<Role> roles,
+                            List<GrantedAuthority> authorities,
+                            long issuedAtMillis,
+                            long expiresAtMillis) {
+
+    public static VerifiedToken of(String userId, Set<Role> roles, long issuedAtMillis, long expiresAtMillis) {
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority("ROLE_" + role.name()))
+                .toList();
+        return new VerifiedToken(userId, Set.copyOf(roles), authorities, issuedAtMillis, expiresAtMillis);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
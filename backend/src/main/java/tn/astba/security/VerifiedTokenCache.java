@@ -0,0 +1,190 @@
+package tn.astba.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-striped LRU cache of verified access tokens.
+ * <p>
+ * Keys are the SHA-256 of the raw token (the token itself is never retained),
+ * values are the {@link VerifiedToken} produced by {@link JwtService#verify(String)}.
+ * An entry is dropped as soon as the token's {@code exp} is reached, so a cached
+ * token is never honoured longer than the JWT itself would be.
+ * </p>
+ * Each stripe is an access-ordered {@link LinkedHashMap} guarded by its own monitor,
+ * so concurrent requests only contend when their tokens hash to the same stripe.
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(
+            @Value("${astba.jwt.cache.max-size:10000}") int maxSize,
+            @Value("${astba.jwt.cache.stripes:16}") int stripeCount) {
+        int n = Integer.highestOneBit(Math.max(1, stripeCount));
+        int perStripe = Math.max(1, maxSize / n);
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.stripeMask = n - 1;
+        log.debug("Cache des tokens vérifiés: {} segments x {} entrées", n, perStripe);
+    }
+
+    /**
+     * Returns the cached verification result, or null on miss or if the token has expired.
+     */
+    public VerifiedToken get(String token) {
+        return get(token, System.currentTimeMillis());
+    }
+
+    VerifiedToken get(String token, long nowMillis) {
+        TokenKey key = keyOf(token);
+        Stripe stripe = stripeFor(key);
+        VerifiedToken verified;
+        synchronized (stripe) {
+            verified = stripe.get(key);
+            if (verified != null && verified.isExpired(nowMillis)) {
+                stripe.remove(key);
+                verified = null;
+            }
+        }
+        if (verified != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return verified;
+    }
+
+    public void put(String token, VerifiedToken verified) {
+        TokenKey key = keyOf(token);
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, verified);
+        }
+    }
+
+    /**
+     * Drop every cached token of a user, e.g. after a role or status change.
+     */
+    public void invalidateUser(String userId) {
+        if (userId == null) return;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.values().removeIf(v -> userId.equals(v.userId()));
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("astba.jwt.cache.gets", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .description("Access token lookups served from the verified-token cache")
+                .register(registry);
+        FunctionCounter.builder("astba.jwt.cache.gets", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .description("Access token lookups that required signature verification")
+                .register(registry);
+        FunctionCounter.builder("astba.jwt.cache.evictions", evictions, LongAdder::sum)
+                .description("Entries evicted because the cache was full")
+                .register(registry);
+        Gauge.builder("astba.jwt.cache.size", this, VerifiedTokenCache::size)
+                .register(registry);
+        Gauge.builder("astba.jwt.cache.hit.ratio", this, VerifiedTokenCache::hitRatio)
+                .register(registry);
+    }
+
+    private Stripe stripeFor(TokenKey key) {
+        return stripes[(int) key.h0() & stripeMask];
+    }
+
+    private static TokenKey keyOf(String token) {
+        MessageDigest digest = SHA256.get();
+        ByteBuffer buf = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        return new TokenKey(buf.getLong(), buf.getLong(), buf.getLong(), buf.getLong());
+    }
+
+    /** SHA-256 of a token, held as four longs to keep keys compact. */
+    private record TokenKey(long h0, long h1, long h2, long h3) {}
+
+    private final class Stripe extends LinkedHashMap<TokenKey, VerifiedToken> {
+
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TokenKey, VerifiedToken> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
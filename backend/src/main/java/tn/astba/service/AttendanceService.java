@@ -21,24 +21,23 @@ public class AttendanceService {
     private final EnrollmentRepository enrollmentRepository;
     private final TrainingService trainingService;
     private final StudentService studentService;
+    private final TrainingStructureService structureService;
 
     /**
      * Mark attendance for multiple students in a single session.
+     * <p>
+     * The session is checked against the structure version each enrollment is pinned to:
+     * an enrollment whose version does not have it is reported, not updated.
+     * </p>
      */
     public AttendanceMarkResponse markAttendance(AttendanceMarkRequest request) {
         Training training = trainingService.getTrainingOrThrow(request.getTrainingId());
-
-        // Validate sessionId exists in training
-        boolean sessionExists = training.getLevels().stream()
-                .flatMap(l -> l.getSessions().stream())
-                .anyMatch(s -> s.getSessionId().equals(request.getSessionId()));
-
-        if (!sessionExists) {
-            throw new ResourceNotFoundException("Séance", "sessionId", request.getSessionId());
-        }
+        boolean inCurrentStructure = structureService.index(training, training.getStructureVersion())
+                .contains(request.getSessionId());
 
         int updatedCount = 0;
         List<String> missingStudentIds = new ArrayList<>();
+        List<String> structureMismatchStudentIds = new ArrayList<>();
 
         for (AttendanceRecord record : request.getRecords()) {
             var enrollmentOpt = enrollmentRepository.findByStudentIdAndTrainingId(
@@ -50,28 +49,45 @@ public class AttendanceService {
             }
 
             Enrollment enrollment = enrollmentOpt.get();
+            SessionIndex index = structureService.index(training, enrollment.getStructureVersion());
+            if (!index.contains(request.getSessionId())) {
+                structureMismatchStudentIds.add(record.getStudentId());
+                continue;
+            }
             enrollment.getAttendance().put(request.getSessionId(), AttendanceEntry.builder()
                     .status(record.getStatus())
                     .markedAt(Instant.now())
                     .build());
 
-            // Recompute progress
-            enrollment.setProgressSnapshot(ProgressCalculator.compute(enrollment, training));
+            // Recompute progress against the structure version the enrollment is pinned to
+            enrollment.setProgressSnapshot(ProgressCalculator.compute(enrollment, index));
             enrollmentRepository.save(enrollment);
             updatedCount++;
         }
 
+        // Unknown to the current structure and to every version the students are pinned to
+        if (!inCurrentStructure && updatedCount == 0) {
+            throw new ResourceNotFoundException("Séance", "sessionId", request.getSessionId());
+        }
+
         String message = String.format("%d présence(s) marquée(s)", updatedCount);
         if (!missingStudentIds.isEmpty()) {
             message += String.format(", %d élève(s) sans inscription", missingStudentIds.size());
         }
+        if (!structureMismatchStudentIds.isEmpty()) {
+            message += String.format(", %d élève(s) inscrit(s) sur une version de la formation sans cette séance",
+                    structureMismatchStudentIds.size());
+        }
 
-        log.debug("Attendance marked: session={}, updated={}, missing={}", request.getSessionId(), updatedCount, missingStudentIds.size());
+        log.debug("Attendance marked: session={}, updated={}, missing={}, versionMismatch={}", request.getSessionId(),
+                updatedCount, missingStudentIds.size(), structureMismatchStudentIds.size());
 
         return AttendanceMarkResponse.builder()
                 .updatedCount(updatedCount)
                 .missingEnrollmentsCount(missingStudentIds.size())
                 .missingStudentIds(missingStudentIds)
+                .structureMismatchCount(structureMismatchStudentIds.size())
+                .structureMismatchStudentIds(structureMismatchStudentIds)
                 .progressUpdated(true)
                 .message(message)
                 .build();
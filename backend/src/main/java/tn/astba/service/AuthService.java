@@ -7,7 +7,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import tn.astba.domain.*;
 import tn.astba.dto.*;
@@ -15,7 +14,11 @@ import tn.astba.exception.BadRequestException;
 import tn.astba.exception.ConflictException;
 import tn.astba.exception.ResourceNotFoundException;
 import tn.astba.repository.UserRepository;
+import tn.astba.security.AuthRateLimiter;
 import tn.astba.security.JwtService;
+import tn.astba.security.PasswordHasher;
+import tn.astba.security.TokenRevocationList;
+import tn.astba.security.VerifiedTokenCache;
 
 import java.time.Instant;
 import java.util.List;
@@ -27,9 +30,16 @@ import java.util.Set;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtService jwtService;
     private final RefreshTokenService refreshTokenService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final AuthRateLimiter authRateLimiter;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final TypeaheadService typeaheadService;
+    private final ReferenceCache referenceCache;
+    private final SeanceReadModel seanceReadModel;
 
     @Value("${astba.public-register:true}")
     private boolean publicRegisterEnabled;
@@ -43,6 +53,7 @@ public class AuthService {
         }
 
         String email = request.getEmail().toLowerCase().trim();
+        authRateLimiter.acquireEmail(AuthRateLimiter.REGISTER, email);
 
         if (userRepository.existsByEmail(email)) {
             throw new ConflictException("Un compte existe déjà avec cet email");
@@ -68,7 +79,7 @@ public class AuthService {
 
         User user = User.builder()
                 .email(email)
-                .passwordHash(passwordEncoder.encode(request.getPassword()))
+                .passwordHash(passwordHasher.encode(request.getPassword()))
                 .firstName(request.getFirstName() != null ? request.getFirstName().trim() : null)
                 .lastName(request.getLastName() != null ? request.getLastName().trim() : null)
                 .roles(Set.of(role))
@@ -79,7 +90,7 @@ public class AuthService {
                 .phone(request.getPhone() != null ? request.getPhone().trim() : null)
                 .build();
 
-        user = userRepository.save(user);
+        user = save(user);
         log.info("Nouvel utilisateur inscrit: email={}, role={}, status={}", email, role, status);
 
         return AuthResponse.builder()
@@ -95,6 +106,7 @@ public class AuthService {
      */
     public LoginResult login(LoginRequest request) {
         String email = request.getEmail().toLowerCase().trim();
+        authRateLimiter.acquireEmail(AuthRateLimiter.LOGIN, email);
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new BadRequestException("Email ou mot de passe incorrect"));
 
@@ -102,7 +114,7 @@ public class AuthService {
             throw new BadRequestException("Ce compte utilise la connexion Google. Veuillez vous connecter via Google.");
         }
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPasswordHash())) {
             throw new BadRequestException("Email ou mot de passe incorrect");
         }
 
@@ -114,9 +126,16 @@ public class AuthService {
             throw new BadRequestException("Votre compte est en attente de validation par un administrateur.");
         }
 
-        // Update last login
+        // Upgrade the hash while the plain password is at hand
+        if (passwordHasher.needsRehash(user.getPasswordHash())) {
+            user.setPasswordHash(passwordHasher.encode(request.getPassword()));
+            save(user);
+            log.info("Hash du mot de passe mis à niveau: email={}", email);
+        }
+
+        // Last login is written in the background
         user.setLastLoginAt(Instant.now());
-        userRepository.save(user);
+        lastLoginRecorder.record(user.getId(), user.getLastLoginAt());
 
         String accessToken = jwtService.generateAccessToken(user.getId(), user.getEmail(), user.getRoles());
         String refreshToken = jwtService.generateRefreshToken(user.getId());
@@ -144,10 +163,10 @@ public class AuthService {
             throw new BadRequestException("Token de rafraîchissement invalide ou expiré");
         }
 
-        var storedToken = refreshTokenService.validateRefreshToken(rawRefreshToken)
-                .orElseThrow(() -> new BadRequestException("Token de rafraîchissement révoqué ou introuvable"));
+        // Token rotation: atomic revoke of the presented token (a replay revokes its family)
+        var consumedToken = refreshTokenService.consumeRefreshToken(rawRefreshToken);
 
-        String userId = storedToken.getUserId();
+        String userId = consumedToken.getUserId();
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new BadRequestException("Utilisateur introuvable"));
 
@@ -155,10 +174,9 @@ public class AuthService {
             throw new BadRequestException("Compte inactif");
         }
 
-        // Token rotation
         String newAccessToken = jwtService.generateAccessToken(user.getId(), user.getEmail(), user.getRoles());
         String newRefreshToken = jwtService.generateRefreshToken(user.getId());
-        refreshTokenService.rotateRefreshToken(userId, rawRefreshToken, newRefreshToken);
+        refreshTokenService.storeRotatedToken(consumedToken, newRefreshToken);
 
         return LoginResult.builder()
                 .user(user)
@@ -199,17 +217,31 @@ public class AuthService {
 
         if (existing.isPresent()) {
             User user = existing.get();
+            boolean changed = false;
             // Link Google provider if not already
             if (user.getProviderId() == null) {
                 user.setProviderId(googleId);
                 if (user.getProvider() == AuthProvider.LOCAL) {
                     user.setProvider(AuthProvider.GOOGLE); // upgrade
                 }
+                changed = true;
+            }
+            if (user.getFirstName() == null && firstName != null) {
+                user.setFirstName(firstName);
+                changed = true;
+            }
+            if (user.getLastName() == null && lastName != null) {
+                user.setLastName(lastName);
+                changed = true;
+            }
+            if (changed) {
+                user = save(user);
+                typeaheadService.onUserSaved(user);
+                seanceReadModel.userChanged(user.getId());
             }
-            if (user.getFirstName() == null && firstName != null) user.setFirstName(firstName);
-            if (user.getLastName() == null && lastName != null) user.setLastName(lastName);
             user.setLastLoginAt(Instant.now());
-            return userRepository.save(user);
+            lastLoginRecorder.record(user.getId(), user.getLastLoginAt());
+            return user;
         }
 
         // New Google user — needs admin approval
@@ -224,7 +256,7 @@ public class AuthService {
                 .lastLoginAt(Instant.now())
                 .build();
 
-        user = userRepository.save(user);
+        user = save(user);
         log.info("Nouvel utilisateur Google créé: email={}", normalizedEmail);
         return user;
     }
@@ -253,7 +285,10 @@ public class AuthService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "id", userId));
         user.setRoles(roles);
-        user = userRepository.save(user);
+        user = save(user);
+        typeaheadService.onUserSaved(user);
+        tokenRevocationList.revokeUser(userId);
+        verifiedTokenCache.invalidateUser(userId);
         log.info("Rôles mis à jour: userId={}, roles={}", userId, roles);
         return toResponse(user);
     }
@@ -262,7 +297,12 @@ public class AuthService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Utilisateur", "id", userId));
         user.setStatus(status);
-        user = userRepository.save(user);
+        user = save(user);
+        typeaheadService.onUserSaved(user);
+        if (status != UserStatus.ACTIVE) {
+            tokenRevocationList.revokeUser(userId);
+        }
+        verifiedTokenCache.invalidateUser(userId);
         log.info("Statut mis à jour: userId={}, status={}", userId, status);
         return toResponse(user);
     }
@@ -285,14 +325,21 @@ public class AuthService {
                 .build();
 
         if (request.getPassword() != null && !request.getPassword().isBlank()) {
-            user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+            user.setPasswordHash(passwordHasher.encode(request.getPassword()));
         }
 
-        user = userRepository.save(user);
+        user = save(user);
+        typeaheadService.onUserSaved(user);
         log.info("Utilisateur créé par admin: email={}, role={}", email, request.getRole());
         return toResponse(user);
     }
 
+    private User save(User user) {
+        User saved = userRepository.save(user);
+        referenceCache.evictUser(saved.getId());
+        return saved;
+    }
+
     public UserResponse toResponse(User user) {
         return UserResponse.builder()
                 .id(user.getId())
@@ -0,0 +1,119 @@
+package tn.astba.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: one record at a time, quoted fields may contain
+ * separators, doubled quotes and line breaks. The separator is {@code ,} or {@code ;}
+ * (French spreadsheet exports), chosen from the header line.
+ */
+class CsvReader implements Closeable {
+
+    private final Reader in;
+    private char separator;
+    private int peeked = -2;
+    private int line = 1;
+    private int recordLine;
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Line number (1-based) at which the last returned record started.
+     */
+    int recordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Read the header record, detecting the separator from it.
+     */
+    List<String> readHeader() throws IOException {
+        StringBuilder raw = new StringBuilder();
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            if (c != '\r') raw.append((char) c);
+        }
+        String header = raw.toString();
+        if (!header.isEmpty() && header.charAt(0) == '\uFEFF') header = header.substring(1); // UTF-8 BOM
+        long semicolons = header.chars().filter(ch -> ch == ';').count();
+        long commas = header.chars().filter(ch -> ch == ',').count();
+        separator = semicolons > commas ? ';' : ',';
+        recordLine = 1;
+
+        List<String> fields = new ArrayList<>();
+        for (String f : header.split(String.valueOf(separator), -1)) {
+            fields.add(f.trim().replace("\"", ""));
+        }
+        return fields;
+    }
+
+    /**
+     * @return the next record, or null at end of input; blank lines are skipped
+     */
+    List<String> next() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == -1) return null;
+            if (c == '\r' || c == '\n') {
+                read();
+                continue;
+            }
+            break;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            int c = read();
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Guillemet non fermé à partir de la ligne " + recordLine);
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        field.append('"');
+                        read();
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) peeked = in.read();
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        peeked = -2;
+        if (c == '\n') line++;
+        return c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
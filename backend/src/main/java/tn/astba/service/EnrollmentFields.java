@@ -0,0 +1,61 @@
+package tn.astba.service;
+
+import tn.astba.exception.BadRequestException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Optional parts of an enrollment response. Parts that are not requested are neither
+ * read from Mongo (projection) nor enriched nor serialized.
+ * <ul>
+ *   <li>{@code view=full} (default): every part, as before;</li>
+ *   <li>{@code view=summary}: progress and student, enough for list screens;</li>
+ *   <li>{@code view=minimal}: ids and dates only;</li>
+ *   <li>{@code fields=progress,student,...}: exactly the listed parts (overrides {@code view}).</li>
+ * </ul>
+ */
+public final class EnrollmentFields {
+
+    public enum Part { ATTENDANCE, PROGRESS, STUDENT, TRAINING }
+
+    public static final EnrollmentFields FULL = new EnrollmentFields(EnumSet.allOf(Part.class));
+    public static final EnrollmentFields SUMMARY = new EnrollmentFields(EnumSet.of(Part.PROGRESS, Part.STUDENT));
+    public static final EnrollmentFields MINIMAL = new EnrollmentFields(EnumSet.noneOf(Part.class));
+
+    private final Set<Part> parts;
+
+    private EnrollmentFields(Set<Part> parts) {
+        this.parts = Collections.unmodifiableSet(parts);
+    }
+
+    public static EnrollmentFields of(String view, String fields) {
+        if (fields != null && !fields.isBlank()) {
+            EnumSet<Part> parts = EnumSet.noneOf(Part.class);
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (name.isEmpty()) continue;
+                try {
+                    parts.add(Part.valueOf(name.toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new BadRequestException("Champ inconnu: " + name
+                            + " (attendance, progress, student, training)");
+                }
+            }
+            return new EnrollmentFields(parts);
+        }
+        if (view == null || view.isBlank()) return FULL;
+        return switch (view.trim().toLowerCase(Locale.ROOT)) {
+            case "full" -> FULL;
+            case "summary" -> SUMMARY;
+            case "minimal" -> MINIMAL;
+            default -> throw new BadRequestException("Vue inconnue: " + view + " (full, summary ou minimal)");
+        };
+    }
+
+    public boolean has(Part part) {
+        return parts.contains(part);
+    }
+}
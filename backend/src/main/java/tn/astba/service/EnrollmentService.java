@@ -2,6 +2,11 @@ package tn.astba.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import tn.astba.domain.*;
 import tn.astba.dto.*;
@@ -12,9 +17,13 @@ import tn.astba.repository.EnrollmentRepository;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -25,6 +34,10 @@ public class EnrollmentService {
     private final StudentService studentService;
     private final TrainingService trainingService;
     private final GroupService groupService;
+    private final MongoTemplate mongoTemplate;
+    private final MongoTransactionRunner transactionRunner;
+    private final TrainingStructureService structureService;
+    private final ReferenceCache referenceCache;
 
     public EnrollmentResponse create(EnrollmentCreateRequest request) {
         // Verify student and training exist
@@ -59,11 +72,13 @@ public class EnrollmentService {
                 .trainingId(request.getTrainingId())
                 .groupId(request.getGroupId())
                 .enrolledAt(Instant.now())
+                .structureVersion(training.getStructureVersion())
                 .attendance(attendance)
                 .build();
 
         // Initialize progress snapshot
-        enrollment.setProgressSnapshot(ProgressCalculator.compute(enrollment, training));
+        enrollment.setProgressSnapshot(ProgressCalculator.compute(enrollment,
+                structureService.index(training, enrollment.getStructureVersion())));
 
         Enrollment saved = enrollmentRepository.save(enrollment);
         log.debug("Inscription créée: student={}, training={}, autoExcused={}",
@@ -72,22 +87,38 @@ public class EnrollmentService {
     }
 
     public EnrollmentResponse findById(String id) {
-        Enrollment enrollment = getEnrollmentOrThrow(id);
-        return toResponse(enrollment, true);
+        return findById(id, EnrollmentFields.FULL);
+    }
+
+    public EnrollmentResponse findById(String id, EnrollmentFields fields) {
+        Enrollment enrollment = mongoTemplate.findOne(project(Query.query(Criteria.where("_id").is(id)), fields),
+                Enrollment.class);
+        if (enrollment == null) {
+            throw new ResourceNotFoundException("Inscription", "id", id);
+        }
+        return toResponses(List.of(enrollment), fields, Map.of(), Map.of()).get(0);
     }
 
     public List<EnrollmentResponse> findByStudentId(String studentId) {
-        studentService.getStudentOrThrow(studentId);
-        return enrollmentRepository.findByStudentId(studentId).stream()
-                .map(e -> toResponse(e, true))
-                .toList();
+        return findByStudentId(studentId, EnrollmentFields.FULL);
+    }
+
+    public List<EnrollmentResponse> findByStudentId(String studentId, EnrollmentFields fields) {
+        Student student = studentService.getStudentOrThrow(studentId);
+        List<Enrollment> enrollments = mongoTemplate.find(
+                project(Query.query(Criteria.where("studentId").is(studentId)), fields), Enrollment.class);
+        return toResponses(enrollments, fields, Map.of(studentId, student), Map.of());
     }
 
     public List<EnrollmentResponse> findByTrainingId(String trainingId) {
-        trainingService.getTrainingOrThrow(trainingId);
-        return enrollmentRepository.findByTrainingId(trainingId).stream()
-                .map(e -> toResponse(e, true))
-                .toList();
+        return findByTrainingId(trainingId, EnrollmentFields.FULL);
+    }
+
+    public List<EnrollmentResponse> findByTrainingId(String trainingId, EnrollmentFields fields) {
+        Training training = trainingService.getTrainingOrThrow(trainingId);
+        List<Enrollment> enrollments = mongoTemplate.find(
+                project(Query.query(Criteria.where("trainingId").is(trainingId)), fields), Enrollment.class);
+        return toResponses(enrollments, fields, Map.of(), Map.of(trainingId, training));
     }
 
     public Enrollment getEnrollmentOrThrow(String id) {
@@ -97,11 +128,11 @@ public class EnrollmentService {
 
     /**
      * Reassign a student's enrollment to a different group.
-     * This also moves the student between groups (removes from old, adds to new).
+     * This also moves the student between groups (removes from old, adds to new),
+     * all in one transaction.
      */
     public EnrollmentResponse reassignGroup(String enrollmentId, String newGroupId) {
         Enrollment enrollment = getEnrollmentOrThrow(enrollmentId);
-        String studentId = enrollment.getStudentId();
         String oldGroupId = enrollment.getGroupId();
 
         // Validate new group exists and belongs to the same training
@@ -110,24 +141,165 @@ public class EnrollmentService {
             throw new ConflictException("Le nouveau groupe n'appartient pas à la même formation");
         }
 
-        // Remove student from old group if set
-        if (oldGroupId != null && !oldGroupId.isBlank()) {
-            try {
-                groupService.removeStudent(oldGroupId, studentId);
-            } catch (ResourceNotFoundException ignored) {
-                // Old group may have been deleted
-            }
-        }
-
-        // Add student to new group
-        groupService.addStudent(newGroupId, studentId);
+        transactionRunner.inTransaction(() -> moveToGroup(List.of(enrollment), newGroupId));
+        evictGroups(List.of(enrollment), newGroupId);
 
-        // Update enrollment
         enrollment.setGroupId(newGroupId);
-        Enrollment saved = enrollmentRepository.save(enrollment);
         log.debug("Inscription réaffectée: enrollment={}, oldGroup={}, newGroup={}",
                 enrollmentId, oldGroupId, newGroupId);
-        return toResponse(saved, true);
+        return toResponse(enrollment, true);
+    }
+
+    /**
+     * Move many enrollments of the group's training into that group in one transaction.
+     */
+    public EnrollmentReassignResponse reassignGroup(List<String> enrollmentIds, String newGroupId) {
+        Group newGroup = groupService.getGroupOrThrow(newGroupId);
+        Set<String> ids = new LinkedHashSet<>(enrollmentIds);
+        List<Enrollment> enrollments = mongoTemplate.find(
+                Query.query(Criteria.where("_id").in(ids)), Enrollment.class);
+        if (enrollments.size() < ids.size()) {
+            Set<String> found = new HashSet<>();
+            enrollments.forEach(e -> found.add(e.getId()));
+            throw new ResourceNotFoundException("Inscription(s) introuvable(s): "
+                    + String.join(", ", ids.stream().filter(id -> !found.contains(id)).toList()));
+        }
+        if (enrollments.stream().anyMatch(e -> !newGroup.getTrainingId().equals(e.getTrainingId()))) {
+            throw new ConflictException("Le nouveau groupe n'appartient pas à la même formation");
+        }
+
+        List<Enrollment> toMove = enrollments.stream()
+                .filter(e -> !newGroupId.equals(e.getGroupId()))
+                .toList();
+        int studentCount = toMove.isEmpty()
+                ? newGroup.getStudentIds().size()
+                : transactionRunner.inTransaction(() -> moveToGroup(toMove, newGroupId));
+        evictGroups(toMove, newGroupId);
+
+        List<String> fromGroupIds = toMove.stream()
+                .map(Enrollment::getGroupId)
+                .filter(g -> g != null && !g.isBlank())
+                .distinct()
+                .toList();
+        log.info("Inscriptions réaffectées au groupe {}: {} déplacée(s) depuis {}", newGroupId, toMove.size(), fromGroupIds);
+        return EnrollmentReassignResponse.builder()
+                .groupId(newGroupId)
+                .moved(toMove.size())
+                .fromGroupIds(fromGroupIds)
+                .studentCount(studentCount)
+                .build();
+    }
+
+    /**
+     * Drop the cached groups a reassignment changed, once its transaction has committed
+     * (evicting inside it would let a concurrent read cache the pre-commit state again).
+     */
+    private void evictGroups(List<Enrollment> moved, String newGroupId) {
+        referenceCache.evictGroup(newGroupId);
+        moved.forEach(e -> referenceCache.evictGroup(e.getGroupId()));
+    }
+
+    /**
+     * The writes of a reassignment: {@code $pull} the students from their previous groups
+     * (one update per group), {@code $addToSet} them into the new one and {@code $set} the
+     * enrollments' groupId. Each enrollment is only moved if it is still in the group it was
+     * read with, so a concurrent reassignment is reported instead of silently overwritten.
+     * The guard also accepts the new group: when the runner re-runs the unit after an unknown
+     * commit result that was in fact applied, the re-run matches instead of raising a conflict.
+     * Must run inside {@link MongoTransactionRunner#inTransaction}; safe to re-run.
+     *
+     * @return the member count of the new group
+     */
+    private int moveToGroup(List<Enrollment> enrollments, String newGroupId) {
+        Instant now = Instant.now();
+        Map<String, List<String>> studentsByOldGroup = new HashMap<>();
+        for (Enrollment e : enrollments) {
+            if (e.getGroupId() != null && !e.getGroupId().isBlank() && !e.getGroupId().equals(newGroupId)) {
+                studentsByOldGroup.computeIfAbsent(e.getGroupId(), g -> new ArrayList<>()).add(e.getStudentId());
+            }
+        }
+        // Old groups may have been deleted: an update matching nothing is fine
+        studentsByOldGroup.forEach((groupId, studentIds) -> mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(groupId)),
+                new Update().pullAll("studentIds", studentIds.toArray()).set("updatedAt", now),
+                Group.class));
+
+        Group newGroup = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(newGroupId)),
+                new Update().addToSet("studentIds").each(enrollments.stream().map(Enrollment::getStudentId).toArray())
+                        .set("updatedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                Group.class);
+        if (newGroup == null) {
+            throw new ResourceNotFoundException("Groupe", "id", newGroupId);
+        }
+
+        for (Enrollment e : enrollments) {
+            // $in with null also matches a missing groupId
+            Criteria unchanged = Criteria.where("groupId").in(Arrays.asList(e.getGroupId(), newGroupId));
+            long matched = mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(e.getId()).andOperator(unchanged)),
+                    new Update().set("groupId", newGroupId).set("updatedAt", now),
+                    Enrollment.class).getMatchedCount();
+            if (matched == 0) {
+                throw new ConflictException("L'inscription " + e.getId() + " a été modifiée entre-temps, veuillez réessayer");
+            }
+        }
+        return newGroup.getStudentIds() != null ? newGroup.getStudentIds().size() : 0;
+    }
+
+    /** Leave the parts that are not requested out of the documents read. */
+    private static Query project(Query query, EnrollmentFields fields) {
+        if (!fields.has(EnrollmentFields.Part.ATTENDANCE)) query.fields().exclude("attendance");
+        if (!fields.has(EnrollmentFields.Part.PROGRESS)) query.fields().exclude("progressSnapshot");
+        return query;
+    }
+
+    /**
+     * Build the responses of a list of enrollments, resolving the requested students and
+     * trainings with at most one {@code $in} query each ({@code known} ones are reused).
+     */
+    private List<EnrollmentResponse> toResponses(List<Enrollment> enrollments, EnrollmentFields fields,
+                                                 Map<String, Student> knownStudents,
+                                                 Map<String, Training> knownTrainings) {
+        Map<String, StudentResponse> students = new HashMap<>();
+        if (fields.has(EnrollmentFields.Part.STUDENT)) {
+            knownStudents.forEach((id, s) -> students.put(id, studentService.toResponse(s)));
+            Set<String> missing = new HashSet<>();
+            enrollments.forEach(e -> { if (!students.containsKey(e.getStudentId())) missing.add(e.getStudentId()); });
+            if (!missing.isEmpty()) {
+                Query query = Query.query(Criteria.where("_id").in(missing));
+                query.fields().exclude("searchTokens");
+                mongoTemplate.find(query, Student.class).forEach(s -> students.put(s.getId(), studentService.toResponse(s)));
+            }
+        }
+        Map<String, TrainingResponse> trainings = new HashMap<>();
+        if (fields.has(EnrollmentFields.Part.TRAINING)) {
+            knownTrainings.forEach((id, t) -> trainings.put(id, trainingService.toResponse(t)));
+            Set<String> missing = new HashSet<>();
+            enrollments.forEach(e -> { if (!trainings.containsKey(e.getTrainingId())) missing.add(e.getTrainingId()); });
+            if (!missing.isEmpty()) {
+                mongoTemplate.find(Query.query(Criteria.where("_id").in(missing)), Training.class)
+                        .forEach(t -> trainings.put(t.getId(), trainingService.toResponse(t)));
+            }
+        }
+
+        List<EnrollmentResponse> responses = new ArrayList<>(enrollments.size());
+        for (Enrollment e : enrollments) {
+            EnrollmentResponse.EnrollmentResponseBuilder builder = EnrollmentResponse.builder()
+                    .id(e.getId())
+                    .studentId(e.getStudentId())
+                    .trainingId(e.getTrainingId())
+                    .groupId(e.getGroupId())
+                    .enrolledAt(e.getEnrolledAt())
+                    .createdAt(e.getCreatedAt());
+            if (fields.has(EnrollmentFields.Part.ATTENDANCE)) builder.attendance(e.getAttendance());
+            if (fields.has(EnrollmentFields.Part.PROGRESS)) builder.progressSnapshot(e.getProgressSnapshot());
+            builder.student(students.get(e.getStudentId()));
+            builder.training(trainings.get(e.getTrainingId()));
+            responses.add(builder.build());
+        }
+        return responses;
     }
 
     public EnrollmentResponse toResponse(Enrollment e, boolean enriched) {
@@ -0,0 +1,297 @@
+package tn.astba.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import tn.astba.domain.AttendanceEntry;
+import tn.astba.domain.AttendanceStatus;
+import tn.astba.domain.Enrollment;
+import tn.astba.domain.Group;
+import tn.astba.domain.Student;
+import tn.astba.domain.Training;
+import tn.astba.exception.ResourceNotFoundException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Streaming CSV/NDJSON exports of students, enrollments and per-training attendance.
+ * <p>
+ * Documents are read from a Mongo cursor with a projection and written as they arrive,
+ * so memory use does not depend on the collection size: enrollments are buffered
+ * {@code astba.export.batch-size} at a time only to resolve student names with one
+ * {@code $in} query per batch. Lookups that must fail with a 404 (unknown training)
+ * happen when the export is prepared, before the response is committed.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    private static final List<String> STUDENT_COLUMNS = List.of(
+            "id", "lastName", "firstName", "birthDate", "email", "phone", "notes", "createdAt");
+
+    private static final List<String> ENROLLMENT_COLUMNS = List.of(
+            "id", "studentId", "lastName", "firstName", "trainingId", "trainingTitle", "groupId", "groupName",
+            "enrolledAt", "attendedCount", "missedCount", "totalSessions", "levelsValidated", "completed",
+            "eligibleForCertificate");
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final TrainingStructureService structureService;
+
+    @Value("${astba.export.batch-size:500}")
+    private int batchSize;
+
+    /** Body of an export, written once the response is streamed. */
+    @FunctionalInterface
+    public interface ExportBody {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    public ExportBody students(ExportFormat format) {
+        return out -> {
+            TabularWriter writer = new TabularWriter(format, objectMapper, out);
+            writer.header(STUDENT_COLUMNS);
+            Query query = new Query().with(Sort.by("lastName", "firstName"));
+            query.fields().include(STUDENT_COLUMNS.toArray(String[]::new));
+            long count = 0;
+            try (Stream<Student> students = mongoTemplate.stream(query, Student.class)) {
+                Iterator<Student> it = students.iterator();
+                while (it.hasNext()) {
+                    Student s = it.next();
+                    writer.row(Arrays.asList(s.getId(), s.getLastName(), s.getFirstName(), s.getBirthDate(),
+                            s.getEmail(), s.getPhone(), s.getNotes(), s.getCreatedAt()));
+                    if (++count % batchSize == 0) writer.flush();
+                }
+            }
+            writer.flush();
+            log.info("Export des élèves: {} lignes ({})", count, format);
+        };
+    }
+
+    /**
+     * @param trainingId restricts the export to one training when not null
+     */
+    public ExportBody enrollments(String trainingId, ExportFormat format) {
+        Map<String, String> trainingTitles = new HashMap<>();
+        Query trainingQuery = trainingId != null
+                ? Query.query(Criteria.where("_id").is(trainingId))
+                : new Query();
+        trainingQuery.fields().include("title");
+        mongoTemplate.find(trainingQuery, Training.class).forEach(t -> trainingTitles.put(t.getId(), t.getTitle()));
+        if (trainingId != null && trainingTitles.isEmpty()) {
+            throw new ResourceNotFoundException("Formation", "id", trainingId);
+        }
+
+        return out -> {
+            Map<String, String> groupNames = groupNames(trainingId);
+            TabularWriter writer = new TabularWriter(format, objectMapper, out);
+            writer.header(ENROLLMENT_COLUMNS);
+
+            Query query = trainingId != null
+                    ? Query.query(Criteria.where("trainingId").is(trainingId))
+                    : new Query();
+            query.fields().exclude("attendance");
+            long count = 0;
+            try (Stream<Enrollment> enrollments = mongoTemplate.stream(query, Enrollment.class)) {
+                List<Enrollment> batch = new ArrayList<>(batchSize);
+                Iterator<Enrollment> it = enrollments.iterator();
+                while (it.hasNext()) {
+                    batch.add(it.next());
+                    if (batch.size() == batchSize || !it.hasNext()) {
+                        Map<String, Student> students = studentNames(batch);
+                        for (Enrollment e : batch) {
+                            writer.row(enrollmentRow(e, students.get(e.getStudentId()),
+                                    trainingTitles.get(e.getTrainingId()), groupNames.get(e.getGroupId())));
+                        }
+                        count += batch.size();
+                        batch.clear();
+                        writer.flush();
+                    }
+                }
+            }
+            writer.flush();
+            log.info("Export des inscriptions: {} lignes ({})", count, format);
+        };
+    }
+
+    /**
+     * One row per enrolled student with the status of every session of the training
+     * (in level/session order); sessions not marked yet are left empty.
+     * <p>
+     * Each enrollment is measured against the structure version it is pinned to: the
+     * columns are the level/session slots of every version in use, and a row only fills
+     * the slots of its own version (the others stay empty).
+     * </p>
+     */
+    public ExportBody attendanceMatrix(String trainingId, ExportFormat format) {
+        Query trainingQuery = Query.query(Criteria.where("_id").is(trainingId));
+        trainingQuery.fields().include("title", "levels", "structureVersion");
+        Training training = mongoTemplate.findOne(trainingQuery, Training.class);
+        if (training == null) {
+            throw new ResourceNotFoundException("Formation", "id", trainingId);
+        }
+
+        Map<Integer, SessionIndex> versions = new TreeMap<>();
+        for (Integer version : versionsInUse(training)) {
+            versions.put(version, structureService.index(training, version));
+        }
+        Map<Slot, Integer> slots = new TreeMap<>();
+        versions.values().forEach(index -> slotsOf(index).forEach(slot -> slots.putIfAbsent(slot, 0)));
+        List<String> columns = new ArrayList<>(List.of("studentId", "lastName", "firstName", "groupName", "structureVersion"));
+        for (Slot slot : slots.keySet()) {
+            slots.put(slot, columns.size() - 5);
+            columns.add("N" + slot.level() + "-S" + slot.session());
+        }
+        columns.add("attendedCount");
+
+        // Session id in each column, per version; an enrollment pinned after this point is resolved lazily
+        Map<Integer, String[]> sessionIdsByVersion = new HashMap<>();
+        Function<Integer, String[]> sessionIds = version -> sessionIdsByVersion.computeIfAbsent(version, v -> {
+            SessionIndex index = versions.computeIfAbsent(v, x -> structureService.index(training, x));
+            String[] ids = new String[slots.size()];
+            List<Slot> own = slotsOf(index);
+            for (int position = 0; position < own.size(); position++) {
+                Integer column = slots.get(own.get(position));
+                if (column != null) ids[column] = index.sessionId(position);
+            }
+            return ids;
+        });
+
+        return out -> {
+            Map<String, String> groupNames = groupNames(trainingId);
+            TabularWriter writer = new TabularWriter(format, objectMapper, out);
+            writer.header(columns);
+
+            Query query = Query.query(Criteria.where("trainingId").is(trainingId));
+            query.fields().include("studentId", "groupId", "attendance", "structureVersion");
+            long count = 0;
+            try (Stream<Enrollment> enrollments = mongoTemplate.stream(query, Enrollment.class)) {
+                List<Enrollment> batch = new ArrayList<>(batchSize);
+                Iterator<Enrollment> it = enrollments.iterator();
+                while (it.hasNext()) {
+                    batch.add(it.next());
+                    if (batch.size() == batchSize || !it.hasNext()) {
+                        Map<String, Student> students = studentNames(batch);
+                        for (Enrollment e : batch) {
+                            int version = e.getStructureVersion() != null ? e.getStructureVersion() : 1;
+                            writer.row(attendanceRow(e, students.get(e.getStudentId()),
+                                    groupNames.get(e.getGroupId()), version, sessionIds.apply(version)));
+                        }
+                        count += batch.size();
+                        batch.clear();
+                        writer.flush();
+                    }
+                }
+            }
+            writer.flush();
+            log.info("Export des présences: trainingId={}, {} lignes ({})", trainingId, count, format);
+        };
+    }
+
+    /** Level/session slot of a matrix column, ordered by level then session number. */
+    private record Slot(int level, int session) implements Comparable<Slot> {
+        @Override
+        public int compareTo(Slot o) {
+            return level != o.level ? Integer.compare(level, o.level) : Integer.compare(session, o.session);
+        }
+    }
+
+    private static List<Slot> slotsOf(SessionIndex index) {
+        List<Slot> slots = new ArrayList<>(index.sessionCount());
+        for (int l = 0; l < index.levelCount(); l++) {
+            for (int p = index.levelStart(l); p < index.levelEnd(l); p++) {
+                slots.add(new Slot(index.levelNumber(l), index.sessionNumber(p)));
+            }
+        }
+        return slots;
+    }
+
+    /** Structure versions the training's enrollments are pinned to ({@code null} meaning 1). */
+    private Set<Integer> versionsInUse(Training training) {
+        Criteria ofTraining = Criteria.where("trainingId").is(training.getId());
+        Set<Integer> versions = new TreeSet<>(mongoTemplate.findDistinct(
+                Query.query(ofTraining), "structureVersion", Enrollment.class, Integer.class));
+        if (mongoTemplate.exists(Query.query(Criteria.where("trainingId").is(training.getId())
+                .and("structureVersion").isNull()), Enrollment.class)) {
+            versions.add(1);
+        }
+        if (versions.isEmpty()) {
+            versions.add(training.getStructureVersion() != null ? training.getStructureVersion() : 1);
+        }
+        return versions;
+    }
+
+    private Map<String, String> groupNames(String trainingId) {
+        Query query = trainingId != null
+                ? Query.query(Criteria.where("trainingId").is(trainingId))
+                : new Query();
+        query.fields().include("name");
+        Map<String, String> names = new HashMap<>();
+        mongoTemplate.find(query, Group.class).forEach(g -> names.put(g.getId(), g.getName()));
+        return names;
+    }
+
+    private Map<String, Student> studentNames(List<Enrollment> batch) {
+        Set<String> ids = new HashSet<>();
+        for (Enrollment e : batch) ids.add(e.getStudentId());
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include("firstName", "lastName");
+        Map<String, Student> students = new HashMap<>();
+        mongoTemplate.find(query, Student.class).forEach(s -> students.put(s.getId(), s));
+        return students;
+    }
+
+    private static List<Object> enrollmentRow(Enrollment e, Student s, String trainingTitle, String groupName) {
+        var p = e.getProgressSnapshot();
+        return Arrays.asList(e.getId(), e.getStudentId(),
+                s != null ? s.getLastName() : null, s != null ? s.getFirstName() : null,
+                e.getTrainingId(), trainingTitle, e.getGroupId(), groupName, e.getEnrolledAt(),
+                p != null ? p.getAttendedCount() : null, p != null ? p.getMissedCount() : null,
+                p != null ? p.getTotalSessions() : null, p != null ? p.getLevelsValidated() : null,
+                p != null ? p.isCompleted() : null, p != null ? p.isEligibleForCertificate() : null);
+    }
+
+    private static List<Object> attendanceRow(Enrollment e, Student s, String groupName, int version,
+                                              String[] sessionIds) {
+        List<Object> row = new ArrayList<>(sessionIds.length + 6);
+        row.add(e.getStudentId());
+        row.add(s != null ? s.getLastName() : null);
+        row.add(s != null ? s.getFirstName() : null);
+        row.add(groupName);
+        row.add(version);
+        Map<String, AttendanceEntry> attendance = e.getAttendance() != null ? e.getAttendance() : Map.of();
+        int attended = 0;
+        for (String sessionId : sessionIds) {
+            AttendanceEntry entry = sessionId != null ? attendance.get(sessionId) : null;
+            if (entry == null || entry.getStatus() == null) {
+                row.add(null);
+            } else {
+                row.add(entry.getStatus().name());
+                if (entry.getStatus() != AttendanceStatus.ABSENT) attended++;
+            }
+        }
+        row.add(attended);
+        return row;
+    }
+}
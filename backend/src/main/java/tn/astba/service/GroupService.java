@@ -2,37 +2,63 @@ package tn.astba.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import tn.astba.domain.*;
 import tn.astba.dto.*;
+import tn.astba.exception.BadRequestException;
 import tn.astba.exception.ResourceNotFoundException;
-import tn.astba.repository.EnrollmentRepository;
 import tn.astba.repository.GroupRepository;
-import tn.astba.repository.UserRepository;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class GroupService {
 
+    private static final int DUPLICATE_KEY = 11000;
+
     private final GroupRepository groupRepository;
     private final TrainingService trainingService;
     private final StudentService studentService;
-    private final EnrollmentRepository enrollmentRepository;
-    private final UserRepository userRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TrainingStructureService structureService;
+    private final ReferenceCache referenceCache;
+    private final SeanceReadModel seanceReadModel;
 
     public List<GroupResponse> findAll() {
-        return groupRepository.findAll().stream().map(this::toResponse).toList();
+        return findAll(GroupView.FULL);
+    }
+
+    public List<GroupResponse> findAll(GroupView view) {
+        return toResponses(groupRepository.findAll(), view);
     }
 
     public List<GroupResponse> findByTrainingId(String trainingId) {
+        return findByTrainingId(trainingId, GroupView.FULL);
+    }
+
+    public List<GroupResponse> findByTrainingId(String trainingId, GroupView view) {
         trainingService.getTrainingOrThrow(trainingId);
-        return groupRepository.findByTrainingId(trainingId).stream().map(this::toResponse).toList();
+        return toResponses(groupRepository.findByTrainingId(trainingId), view);
     }
 
     public GroupResponse findById(String id) {
@@ -56,59 +82,87 @@ public class GroupService {
         log.debug("Groupe créé: id={}, name={}", saved.getId(), saved.getName());
 
         // Auto-enroll all initial students in the group's training
-        if (saved.getStudentIds() != null) {
-            for (String sid : saved.getStudentIds()) {
-                autoEnroll(sid, saved.getTrainingId(), saved.getId());
-            }
-        }
+        autoEnroll(studentIdsOf(saved), saved.getTrainingId(), saved.getId());
 
         return toResponse(saved);
     }
 
     public GroupResponse update(String id, GroupUpdateRequest request) {
-        Group group = getGroupOrThrow(id);
-
-        if (request.getName() != null) group.setName(request.getName().trim());
-        if (request.getDayOfWeek() != null) group.setDayOfWeek(request.getDayOfWeek());
-        if (request.getStartTime() != null) group.setStartTime(request.getStartTime());
-        if (request.getEndTime() != null) group.setEndTime(request.getEndTime());
-        List<String> oldStudentIds = new ArrayList<>(group.getStudentIds() != null ? group.getStudentIds() : List.of());
-        if (request.getStudentIds() != null) group.setStudentIds(request.getStudentIds());
-        if (request.getTrainerId() != null) group.setTrainerId(request.getTrainerId());
+        // Only the provided fields are written, so a concurrent roster change is not overwritten
+        Update update = new Update().set("updatedAt", Instant.now());
+        if (request.getName() != null) update.set("name", request.getName().trim());
+        if (request.getDayOfWeek() != null) update.set("dayOfWeek", request.getDayOfWeek());
+        if (request.getStartTime() != null) update.set("startTime", request.getStartTime());
+        if (request.getEndTime() != null) update.set("endTime", request.getEndTime());
+        if (request.getStudentIds() != null) update.set("studentIds", request.getStudentIds());
+        if (request.getTrainerId() != null) update.set("trainerId", request.getTrainerId());
 
-        Group saved = groupRepository.save(group);
+        List<String> oldStudentIds = studentIdsOf(modifyOrThrow(id, update));
+        Group saved = getGroupOrThrow(id);
+        if (request.getName() != null) seanceReadModel.groupChanged(id);
         log.debug("Groupe mis à jour: id={}", saved.getId());
 
         // Auto-enroll any newly added students in the group's training
         if (request.getStudentIds() != null) {
-            for (String sid : request.getStudentIds()) {
-                if (!oldStudentIds.contains(sid)) {
-                    autoEnroll(sid, saved.getTrainingId(), saved.getId());
-                }
-            }
+            Set<String> previous = new HashSet<>(oldStudentIds);
+            autoEnroll(request.getStudentIds().stream().filter(sid -> !previous.contains(sid)).toList(),
+                    saved.getTrainingId(), saved.getId());
         }
 
         return toResponse(saved);
     }
 
     public GroupResponse addStudent(String groupId, String studentId) {
-        Group group = getGroupOrThrow(groupId);
         studentService.getStudentOrThrow(studentId);
+        Group group = addMembers(groupId, List.of(studentId));
 
-        if (!group.getStudentIds().contains(studentId)) {
-            group.getStudentIds().add(studentId);
-            groupRepository.save(group);
-        }
         // Auto-enroll the student in the group's training
-        autoEnroll(studentId, group.getTrainingId(), group.getId());
+        autoEnroll(List.of(studentId), group.getTrainingId(), group.getId());
         return toResponse(group);
     }
 
     public GroupResponse removeStudent(String groupId, String studentId) {
-        Group group = getGroupOrThrow(groupId);
-        group.getStudentIds().remove(studentId);
-        groupRepository.save(group);
-        return toResponse(group);
+        return toResponse(removeMembers(groupId, List.of(studentId)));
+    }
+
+    /**
+     * Add and/or remove many students at once. Each side is a single atomic update;
+     * newly added students are auto-enrolled in the group's training.
+     */
+    public GroupMembershipResponse updateMembers(String groupId, GroupMembershipRequest request) {
+        Set<String> toAdd = request.getAdd() != null ? new LinkedHashSet<>(request.getAdd()) : Set.of();
+        Set<String> toRemove = request.getRemove() != null ? new LinkedHashSet<>(request.getRemove()) : Set.of();
+        if (toAdd.isEmpty() && toRemove.isEmpty()) {
+            throw new BadRequestException("Aucun élève à ajouter ou retirer");
+        }
+        if (toAdd.stream().anyMatch(toRemove::contains)) {
+            throw new BadRequestException("Un même élève ne peut pas être ajouté et retiré à la fois");
+        }
+
+        List<String> added = List.of();
+        List<String> removed = List.of();
+        Group group = null;
+        if (!toAdd.isEmpty()) {
+            requireStudentsExist(toAdd);
+            Group previous = modifyOrThrow(groupId, addToSet(toAdd));
+            Set<String> before = new HashSet<>(studentIdsOf(previous));
+            added = toAdd.stream().filter(sid -> !before.contains(sid)).toList();
+            group = afterAdd(previous, toAdd);
+        }
+        if (!toRemove.isEmpty()) {
+            Group previous = modifyOrThrow(groupId, pull(toRemove));
+            removed = studentIdsOf(previous).stream().filter(toRemove::contains).toList();
+            group = afterPull(previous, toRemove);
+        }
+
+        autoEnroll(added, group.getTrainingId(), groupId);
+        log.info("Membres du groupe {} mis à jour: {} ajouté(s), {} retiré(s)", groupId, added.size(), removed.size());
+        return GroupMembershipResponse.builder()
+                .groupId(groupId)
+                .added(added)
+                .removed(removed)
+                .studentCount(studentIdsOf(group).size())
+                .build();
     }
 
     public void delete(String id) {
@@ -116,37 +170,190 @@ public class GroupService {
             throw new ResourceNotFoundException("Groupe", "id", id);
         }
         groupRepository.deleteById(id);
+        referenceCache.evictGroup(id);
         log.debug("Groupe supprimé: id={}", id);
     }
 
+    /**
+     * {@code $addToSet} the students; returns the group as it is right after the update.
+     */
+    private Group addMembers(String groupId, Collection<String> studentIds) {
+        return afterAdd(modifyOrThrow(groupId, addToSet(studentIds)), studentIds);
+    }
+
+    /**
+     * {@code $pull} the students; returns the group as it is right after the update.
+     */
+    private Group removeMembers(String groupId, Collection<String> studentIds) {
+        return afterPull(modifyOrThrow(groupId, pull(studentIds)), studentIds);
+    }
+
+    private static Update addToSet(Collection<String> studentIds) {
+        return new Update().addToSet("studentIds").each(studentIds.toArray())
+                .set("updatedAt", Instant.now());
+    }
+
+    private static Update pull(Collection<String> studentIds) {
+        return new Update().pullAll("studentIds", studentIds.toArray())
+                .set("updatedAt", Instant.now());
+    }
+
+    /**
+     * Apply the update atomically and return the document as it was just before it,
+     * which tells exactly which members the update changed.
+     */
+    private Group modifyOrThrow(String groupId, Update update) {
+        Group previous = mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(groupId)), update,
+                FindAndModifyOptions.options().returnNew(false), Group.class);
+        if (previous == null) {
+            throw new ResourceNotFoundException("Groupe", "id", groupId);
+        }
+        referenceCache.evictGroup(groupId);
+        return previous;
+    }
+
+    /** The post-update state of an {@code $addToSet}, derived from the pre-update document. */
+    private static Group afterAdd(Group previous, Collection<String> studentIds) {
+        List<String> members = new ArrayList<>(studentIdsOf(previous));
+        Set<String> present = new HashSet<>(members);
+        for (String sid : studentIds) {
+            if (present.add(sid)) members.add(sid);
+        }
+        previous.setStudentIds(members);
+        return previous;
+    }
+
+    /** The post-update state of a {@code $pull}, derived from the pre-update document. */
+    private static Group afterPull(Group previous, Collection<String> studentIds) {
+        Set<String> pulled = new HashSet<>(studentIds);
+        previous.setStudentIds(new ArrayList<>(studentIdsOf(previous).stream()
+                .filter(sid -> !pulled.contains(sid))
+                .toList()));
+        return previous;
+    }
+
+    private static List<String> studentIdsOf(Group group) {
+        return group.getStudentIds() != null ? group.getStudentIds() : List.of();
+    }
+
+    private void requireStudentsExist(Set<String> studentIds) {
+        Query query = Query.query(Criteria.where("_id").in(studentIds));
+        query.fields().include("_id");
+        Set<String> found = mongoTemplate.find(query, Student.class).stream()
+                .map(Student::getId)
+                .collect(Collectors.toSet());
+        List<String> missing = studentIds.stream().filter(sid -> !found.contains(sid)).toList();
+        if (!missing.isEmpty()) {
+            throw new ResourceNotFoundException("Élève(s) introuvable(s): " + String.join(", ", missing));
+        }
+    }
+
+    /**
+     * Shared, cached instance: read-only for callers.
+     */
     public Group getGroupOrThrow(String id) {
-        return groupRepository.findById(id)
+        return referenceCache.group(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Groupe", "id", id));
     }
 
     /**
-     * Auto-enroll a student in a training if not already enrolled.
-     * Creates an Enrollment with the given groupId and computes the initial progress.
+     * Auto-enroll students in a training, skipping those already enrolled.
+     * <p>
+     * The training is loaded once and every Enrollment is built with its initial progress,
+     * then all are sent in one unordered {@code insertMany}: the unique
+     * {@code idx_enrollment_unique} (studentId, trainingId) index rejects students that are
+     * already enrolled, and those duplicate-key errors are simply counted as such.
+     * </p>
+     * @return the number of enrollments created
      */
-    private void autoEnroll(String studentId, String trainingId, String groupId) {
-        if (enrollmentRepository.existsByStudentIdAndTrainingId(studentId, trainingId)) {
-            log.debug("Étudiant {} déjà inscrit à la formation {}, auto-inscription ignorée", studentId, trainingId);
-            return;
-        }
+    private int autoEnroll(Collection<String> studentIds, String trainingId, String groupId) {
+        if (studentIds.isEmpty()) return 0;
         Training training = trainingService.getTrainingOrThrow(trainingId);
-        Enrollment enrollment = Enrollment.builder()
-                .studentId(studentId)
-                .trainingId(trainingId)
-                .groupId(groupId)
-                .enrolledAt(Instant.now())
-                .attendance(new HashMap<>())
-                .build();
-        enrollment.setProgressSnapshot(ProgressCalculator.compute(enrollment, training));
-        enrollmentRepository.save(enrollment);
-        log.debug("Auto-inscription: étudiant {} → formation {} (groupe {})", studentId, trainingId, groupId);
+        SessionIndex structure = structureService.index(training, training.getStructureVersion());
+        Instant now = Instant.now();
+        List<Enrollment> enrollments = new ArrayList<>(studentIds.size());
+        for (String studentId : new LinkedHashSet<>(studentIds)) {
+            Enrollment enrollment = Enrollment.builder()
+                    .studentId(studentId)
+                    .trainingId(trainingId)
+                    .groupId(groupId)
+                    .enrolledAt(now)
+                    .structureVersion(training.getStructureVersion())
+                    .attendance(new HashMap<>())
+                    .build();
+            enrollment.setProgressSnapshot(ProgressCalculator.compute(enrollment, structure));
+            enrollments.add(enrollment);
+        }
+
+        int inserted;
+        try {
+            inserted = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Enrollment.class)
+                    .insert(enrollments)
+                    .execute()
+                    .getInsertedCount();
+        } catch (BulkOperationException e) {
+            if (e.getErrors().stream().anyMatch(err -> err.getCode() != DUPLICATE_KEY)) {
+                throw e;
+            }
+            inserted = e.getResult().getInsertedCount();
+        }
+        log.debug("Auto-inscription: {} élève(s) → formation {} (groupe {}), {} déjà inscrit(s)",
+                inserted, trainingId, groupId, enrollments.size() - inserted);
+        return inserted;
     }
 
     private GroupResponse toResponse(Group g) {
+        return toResponses(List.of(g), GroupView.FULL).get(0);
+    }
+
+    /**
+     * Hydrate a page of groups with a fixed number of queries, whatever its size:
+     * one {@code $in} each for the training titles, the trainer names and (full view)
+     * the students of all groups. A single group resolves its training and trainer
+     * through the {@link ReferenceCache} instead, where both are usually hot.
+     */
+    private List<GroupResponse> toResponses(List<Group> groups, GroupView view) {
+        if (groups.isEmpty()) return List.of();
+
+        Map<String, String> trainingTitles = new HashMap<>();
+        Map<String, User> trainers = new HashMap<>();
+        if (groups.size() == 1) {
+            Group g = groups.get(0);
+            referenceCache.training(g.getTrainingId())
+                    .filter(t -> t.getTitle() != null)
+                    .ifPresent(t -> trainingTitles.put(g.getTrainingId(), t.getTitle()));
+            referenceCache.user(g.getTrainerId()).ifPresent(u -> trainers.put(g.getTrainerId(), u));
+        } else {
+            findByIds(Training.class, collect(groups, Group::getTrainingId), "title").stream()
+                    .filter(t -> t.getTitle() != null)
+                    .forEach(t -> trainingTitles.put(t.getId(), t.getTitle()));
+            findByIds(User.class, collect(groups, Group::getTrainerId), "firstName", "lastName")
+                    .forEach(u -> trainers.put(u.getId(), u));
+        }
+
+        Map<String, StudentResponse> students = Map.of();
+        if (view == GroupView.FULL) {
+            Set<String> studentIds = new HashSet<>();
+            for (Group g : groups) {
+                if (g.getStudentIds() != null) studentIds.addAll(g.getStudentIds());
+            }
+            if (!studentIds.isEmpty()) {
+                Query query = Query.query(Criteria.where("_id").in(studentIds));
+                query.fields().exclude("searchTokens");
+                students = mongoTemplate.find(query, Student.class).stream()
+                        .collect(Collectors.toMap(Student::getId, studentService::toResponse));
+            }
+        }
+
+        List<GroupResponse> responses = new ArrayList<>(groups.size());
+        for (Group g : groups) {
+            responses.add(toResponse(g, view, trainingTitles, trainers, students));
+        }
+        return responses;
+    }
+
+    private GroupResponse toResponse(Group g, GroupView view, Map<String, String> trainingTitles,
+                                     Map<String, User> trainers, Map<String, StudentResponse> students) {
         GroupResponse.GroupResponseBuilder builder = GroupResponse.builder()
                 .id(g.getId())
                 .name(g.getName())
@@ -161,29 +368,38 @@ public class GroupService {
                 .updatedAt(g.getUpdatedAt());
 
         // Enrich with training title
-        try {
-            builder.trainingTitle(trainingService.getTrainingOrThrow(g.getTrainingId()).getTitle());
-        } catch (ResourceNotFoundException ignored) {}
+        builder.trainingTitle(trainingTitles.get(g.getTrainingId()));
 
         // Enrich with trainer name
-        if (g.getTrainerId() != null) {
-            try {
-                userRepository.findById(g.getTrainerId()).ifPresent(u ->
-                        builder.trainerName(u.getFirstName() + " " + u.getLastName()));
-            } catch (Exception ignored) {}
-        }
-
-        // Enrich with student details
-        if (g.getStudentIds() != null && !g.getStudentIds().isEmpty()) {
-            List<StudentResponse> students = new ArrayList<>();
-            for (String sid : g.getStudentIds()) {
-                try {
-                    students.add(studentService.toResponse(studentService.getStudentOrThrow(sid)));
-                } catch (ResourceNotFoundException ignored) {}
-            }
-            builder.students(students);
+        User trainer = g.getTrainerId() != null ? trainers.get(g.getTrainerId()) : null;
+        if (trainer != null) {
+            builder.trainerName(trainer.getFirstName() + " " + trainer.getLastName());
+        }
+
+        // Enrich with student details, in group order; ids of deleted students are skipped
+        if (view == GroupView.FULL && g.getStudentIds() != null && !g.getStudentIds().isEmpty()) {
+            builder.students(g.getStudentIds().stream()
+                    .map(students::get)
+                    .filter(Objects::nonNull)
+                    .toList());
         }
 
         return builder.build();
     }
+
+    private <T> List<T> findByIds(Class<T> type, Collection<String> ids, String... fields) {
+        if (ids.isEmpty()) return List.of();
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include(fields);
+        return mongoTemplate.find(query, type);
+    }
+
+    private static Set<String> collect(List<Group> groups, Function<Group, String> id) {
+        Set<String> ids = new HashSet<>();
+        for (Group g : groups) {
+            String value = id.apply(g);
+            if (value != null) ids.add(value);
+        }
+        return ids;
+    }
 }
@@ -0,0 +1,23 @@
+package tn.astba.service;
+
+import tn.astba.exception.BadRequestException;
+
+import java.util.Locale;
+
+/**
+ * How much of a group is hydrated in responses: {@link #FULL} embeds the student
+ * details, {@link #SUMMARY} (list screens) only returns ids and counts.
+ */
+public enum GroupView {
+    FULL,
+    SUMMARY;
+
+    public static GroupView of(String value) {
+        if (value == null || value.isBlank()) return FULL;
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Vue inconnue: " + value + " (full ou summary)");
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package tn.astba.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.astba.domain.User;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Buffers last-login timestamps and writes them in the background, off the login path.
+ * <p>
+ * Logins of the same user between two flushes coalesce into the latest timestamp.
+ * Each flush is one unordered bulk write with a {@code $max} per user, so the stored
+ * value never goes backwards whatever the interleaving between nodes.
+ * An entry is only dropped from the buffer if it was not updated meanwhile, and
+ * failed flushes are re-queued, so no login is lost.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LastLoginRecorder {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final Map<String, Instant> pending = new ConcurrentHashMap<>();
+
+    public void record(String userId, Instant loginAt) {
+        pending.merge(userId, loginAt, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    @Scheduled(fixedDelayString = "${astba.auth.last-login-flush-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+
+        Map<String, Instant> batch = new LinkedHashMap<>();
+        for (Map.Entry<String, Instant> e : pending.entrySet()) {
+            if (pending.remove(e.getKey(), e.getValue())) {
+                batch.put(e.getKey(), e.getValue());
+            }
+        }
+        if (batch.isEmpty()) return;
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        batch.forEach((userId, loginAt) ->
+                ops.updateOne(Query.query(where("_id").is(userId)), new Update().max("lastLoginAt", loginAt)));
+        try {
+            ops.execute();
+            log.debug("Dernières connexions enregistrées: {} utilisateur(s)", batch.size());
+        } catch (Exception e) {
+            log.warn("Écriture des dernières connexions impossible, nouvel essai au prochain cycle: {}", e.getMessage());
+            batch.forEach(this::record);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
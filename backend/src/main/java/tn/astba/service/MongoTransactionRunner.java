@@ -0,0 +1,74 @@
+package tn.astba.service;
+
+import com.mongodb.MongoException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in a Mongo multi-document transaction, retrying the whole
+ * unit when the server labels the failure as transient (write conflict, primary
+ * step-down, unknown commit result). The work must therefore be safe to re-run,
+ * which {@code $set}/{@code $addToSet}/{@code $pull} updates are. After an unknown
+ * commit result the first run may have been applied, so any guard the work checks
+ * (e.g. "field still has its old value") must also accept the value it writes.
+ * <p>
+ * With {@code astba.mongo.transactions.enabled=false} (standalone server) the work
+ * runs without a transaction.
+ * </p>
+ */
+@Slf4j
+@Component
+public class MongoTransactionRunner {
+
+    private static final String TRANSIENT_TRANSACTION_ERROR = "TransientTransactionError";
+    private static final String UNKNOWN_COMMIT_RESULT = "UnknownTransactionCommitResult";
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+
+    public MongoTransactionRunner(ObjectProvider<TransactionTemplate> transactionTemplate,
+                                  @Value("${astba.mongo.transactions.max-attempts:3}") int maxAttempts) {
+        this.transactionTemplate = transactionTemplate.getIfAvailable();
+        this.maxAttempts = Math.max(1, maxAttempts);
+    }
+
+    public <T> T inTransaction(Supplier<T> work) {
+        if (transactionTemplate == null) {
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isTransient(e)) {
+                    throw e;
+                }
+                log.warn("Transaction interrompue (tentative {}/{}), nouvel essai: {}", attempt, maxAttempts, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof MongoException mongo
+                    && (mongo.hasErrorLabel(TRANSIENT_TRANSACTION_ERROR) || mongo.hasErrorLabel(UNKNOWN_COMMIT_RESULT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(10L * (1L << attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
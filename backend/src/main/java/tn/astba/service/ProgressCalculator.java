@@ -23,21 +23,27 @@ public final class ProgressCalculator {
     private ProgressCalculator() {}
 
     public static ProgressSnapshot compute(Enrollment enrollment, Training training) {
+        return compute(enrollment, SessionIndex.compile(training.getLevels()));
+    }
+
+    /**
+     * Same rules, against a precompiled structure version (see TrainingStructureService).
+     */
+    public static ProgressSnapshot compute(Enrollment enrollment, SessionIndex index) {
         Map<String, AttendanceEntry> attendance = enrollment.getAttendance();
         if (attendance == null) {
             attendance = Map.of();
         }
 
-        int totalSessions = 0;
+        int totalSessions = index.sessionCount();
         int attendedCount = 0;
         int missedCount = 0;
         List<Integer> levelsValidated = new ArrayList<>();
 
-        for (Level level : training.getLevels()) {
+        for (int l = 0; l < index.levelCount(); l++) {
             boolean levelValid = true;
-            for (Session session : level.getSessions()) {
-                totalSessions++;
-                AttendanceEntry entry = attendance.get(session.getSessionId());
+            for (int i = index.levelStart(l); i < index.levelEnd(l); i++) {
+                AttendanceEntry entry = attendance.get(index.sessionId(i));
                 if (entry != null) {
                     if (entry.getStatus() == AttendanceStatus.PRESENT || entry.getStatus() == AttendanceStatus.EXCUSED) {
                         attendedCount++;
@@ -51,7 +57,7 @@ public final class ProgressCalculator {
                 }
             }
             if (levelValid) {
-                levelsValidated.add(level.getLevelNumber());
+                levelsValidated.add(index.levelNumber(l));
             }
         }
 
@@ -0,0 +1,330 @@
+package tn.astba.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tn.astba.domain.Enrollment;
+import tn.astba.domain.ProgressRecomputeJob;
+import tn.astba.domain.ProgressSnapshot;
+import tn.astba.domain.RecomputeStatus;
+import tn.astba.domain.Training;
+import tn.astba.dto.ProgressRecomputeResponse;
+import tn.astba.exception.ResourceNotFoundException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Migrates the enrollments of a training to its current structure version and recomputes
+ * their progress snapshots against it. Editing a training no longer triggers this (each
+ * enrollment keeps the version it is pinned to, see {@link TrainingStructureService}); it is
+ * run on demand when a structural change must apply to existing enrollments.
+ * <p>
+ * A single coordinator thread streams the enrollments of the training by cursor in
+ * {@code _id} order and cuts them into batches of {@code astba.progress.recompute.batch-size}.
+ * Batches are recomputed on a small bounded pool ({@code threads}, at most twice as many
+ * batches in flight) and written with one unordered bulk update each. Throttling comes from
+ * the pool size and a pause of {@code batch-delay-ms} between batches, so live traffic keeps
+ * its share of the database.
+ * </p>
+ * <ul>
+ *   <li>Progress and the resume checkpoint are stored in {@link ProgressRecomputeJob}; the
+ *       checkpoint only advances once every earlier batch is written.</li>
+ *   <li>A job whose node stopped sending heartbeats is taken over and resumed after its
+ *       checkpoint; rescheduling a running job restarts it from the beginning.</li>
+ *   <li>Each batch reloads the training, and a snapshot is only written if the enrollment was
+ *       not modified since it was read; an enrollment skipped that way keeps its version until
+ *       the next run.</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class ProgressRecomputeService {
+
+    private final MongoTemplate mongoTemplate;
+    private final TrainingStructureService structureService;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ExecutorService coordinator;
+    private final ThreadPoolExecutor workers;
+    private final int maxInFlight;
+    private final int batchSize;
+    private final long batchDelayMillis;
+    private final Duration staleAfter;
+
+    public ProgressRecomputeService(
+            MongoTemplate mongoTemplate,
+            TrainingStructureService structureService,
+            @Value("${astba.progress.recompute.threads:2}") int threads,
+            @Value("${astba.progress.recompute.batch-size:200}") int batchSize,
+            @Value("${astba.progress.recompute.batch-delay-ms:50}") long batchDelayMillis,
+            @Value("${astba.progress.recompute.stale-after-ms:120000}") long staleAfterMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.structureService = structureService;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchDelayMillis = Math.max(0, batchDelayMillis);
+        this.staleAfter = Duration.ofMillis(staleAfterMillis);
+        int poolSize = Math.max(1, threads);
+        this.maxInFlight = poolSize * 2;
+        this.coordinator = Executors.newSingleThreadExecutor(namedThreads("progress-recompute"));
+        this.workers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxInFlight), namedThreads("progress-recompute-worker"));
+    }
+
+    /**
+     * (Re)start the recomputation of a training's enrollments. Returns immediately.
+     */
+    public void schedule(String trainingId) {
+        Instant now = Instant.now();
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(trainingId)),
+                new Update().set("status", RecomputeStatus.PENDING)
+                        .inc("generation", 1)
+                        .set("total", 0L).set("processed", 0L).set("updated", 0L)
+                        .unset("lastEnrollmentId").unset("error").unset("finishedAt").unset("startedAt")
+                        .set("requestedAt", now),
+                ProgressRecomputeJob.class);
+        log.info("Recalcul de la progression planifié: trainingId={}", trainingId);
+        coordinator.execute(() -> run(trainingId));
+    }
+
+    public ProgressRecomputeResponse getStatus(String trainingId) {
+        ProgressRecomputeJob job = mongoTemplate.findById(trainingId, ProgressRecomputeJob.class);
+        if (job == null) {
+            throw new ResourceNotFoundException("Recalcul de progression", "trainingId", trainingId);
+        }
+        int percent = job.getStatus() == RecomputeStatus.COMPLETED ? 100
+                : job.getTotal() == 0 ? 0
+                : (int) Math.min(99, job.getProcessed() * 100 / job.getTotal());
+        return ProgressRecomputeResponse.builder()
+                .trainingId(job.getTrainingId())
+                .status(job.getStatus())
+                .total(job.getTotal())
+                .processed(job.getProcessed())
+                .updated(job.getUpdated())
+                .percent(percent)
+                .requestedAt(job.getRequestedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .error(job.getError())
+                .build();
+    }
+
+    /**
+     * Pick up jobs left pending or abandoned by a node that stopped (crash, redeploy).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${astba.progress.recompute.resume-interval-ms:60000}",
+               initialDelayString = "${astba.progress.recompute.resume-interval-ms:60000}")
+    public void resumeAbandoned() {
+        try {
+            for (ProgressRecomputeJob job : mongoTemplate.find(Query.query(claimable(Instant.now())),
+                    ProgressRecomputeJob.class)) {
+                coordinator.execute(() -> run(job.getTrainingId()));
+            }
+        } catch (Exception e) {
+            log.warn("Reprise des recalculs de progression impossible: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private Criteria claimable(Instant now) {
+        return new Criteria().orOperator(
+                Criteria.where("status").is(RecomputeStatus.PENDING),
+                Criteria.where("status").is(RecomputeStatus.RUNNING).and("heartbeatAt").lt(now.minus(staleAfter)));
+    }
+
+    private void run(String trainingId) {
+        Instant now = Instant.now();
+        ProgressRecomputeJob job = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(trainingId).andOperator(claimable(now))),
+                new Update().set("status", RecomputeStatus.RUNNING).set("owner", nodeId).set("heartbeatAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                ProgressRecomputeJob.class);
+        if (job == null) {
+            return; // already done, or running elsewhere
+        }
+        try {
+            process(job);
+        } catch (InterruptedException e) {
+            // Shutting down: the job stays RUNNING and is resumed from its checkpoint
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Recalcul de la progression échoué: trainingId={}", trainingId, e);
+            mongoTemplate.updateFirst(ownRun(job),
+                    new Update().set("status", RecomputeStatus.FAILED).set("error", String.valueOf(e.getMessage()))
+                            .set("finishedAt", Instant.now()),
+                    ProgressRecomputeJob.class);
+        }
+    }
+
+    private void process(ProgressRecomputeJob job) throws Exception {
+        String trainingId = job.getTrainingId();
+        Criteria remaining = Criteria.where("trainingId").is(trainingId);
+        if (job.getLastEnrollmentId() != null) {
+            remaining = remaining.and("_id").gt(job.getLastEnrollmentId());
+        } else {
+            long total = mongoTemplate.count(Query.query(Criteria.where("trainingId").is(trainingId)), Enrollment.class);
+            mongoTemplate.updateFirst(ownRun(job),
+                    new Update().set("total", total).set("startedAt", Instant.now()), ProgressRecomputeJob.class);
+        }
+        log.info("Recalcul de la progression: trainingId={}, reprise après={}", trainingId, job.getLastEnrollmentId());
+
+        Query query = Query.query(remaining).with(Sort.by("_id"));
+        query.fields().include("structureVersion", "attendance", "progressSnapshot", "updatedAt");
+        query.cursorBatchSize(batchSize);
+
+        Deque<Batch> inFlight = new ArrayDeque<>();
+        boolean superseded = false;
+        try (Stream<Enrollment> enrollments = mongoTemplate.stream(query, Enrollment.class)) {
+            Iterator<Enrollment> it = enrollments.iterator();
+            List<Enrollment> chunk = new ArrayList<>(batchSize);
+            while (it.hasNext() && !superseded) {
+                chunk.add(it.next());
+                if (chunk.size() < batchSize && it.hasNext()) continue;
+
+                List<Enrollment> batch = chunk;
+                chunk = new ArrayList<>(batchSize);
+                inFlight.add(new Batch(batch.get(batch.size() - 1).getId(), batch.size(),
+                        CompletableFuture.supplyAsync(() -> recompute(trainingId, batch), workers)));
+                while (inFlight.size() >= maxInFlight && !superseded) {
+                    superseded = !checkpoint(job, inFlight.poll());
+                }
+                if (batchDelayMillis > 0) Thread.sleep(batchDelayMillis);
+            }
+            while (!inFlight.isEmpty() && !superseded) {
+                superseded = !checkpoint(job, inFlight.poll());
+            }
+        } finally {
+            drain(inFlight);
+        }
+
+        if (superseded) {
+            log.info("Recalcul de la progression remplacé par une exécution plus récente: trainingId={}", trainingId);
+            return;
+        }
+        mongoTemplate.updateFirst(ownRun(job),
+                new Update().set("status", RecomputeStatus.COMPLETED).set("finishedAt", Instant.now()),
+                ProgressRecomputeJob.class);
+        log.info("Recalcul de la progression terminé: trainingId={}", trainingId);
+    }
+
+    /**
+     * Wait for the oldest batch and move the checkpoint past it.
+     *
+     * @return false if the job was rescheduled or taken over meanwhile
+     */
+    private boolean checkpoint(ProgressRecomputeJob job, Batch batch) {
+        int updated = batch.result().join();
+        return mongoTemplate.updateFirst(ownRun(job),
+                new Update().set("lastEnrollmentId", batch.lastId())
+                        .inc("processed", batch.size()).inc("updated", updated)
+                        .set("heartbeatAt", Instant.now()),
+                ProgressRecomputeJob.class).getMatchedCount() > 0;
+    }
+
+    /**
+     * Wait for the batches still in flight when a run stops. Cancelling them would not take
+     * them off the pool's queue, and the next run would find it full.
+     */
+    private void drain(Deque<Batch> inFlight) {
+        for (Batch batch : inFlight) {
+            if (workers.isShutdown()) return;
+            try {
+                batch.result().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // The run already stopped; the batch's failure changes nothing
+            }
+        }
+    }
+
+    private Query ownRun(ProgressRecomputeJob job) {
+        return Query.query(Criteria.where("_id").is(job.getTrainingId())
+                .and("generation").is(job.getGeneration())
+                .and("owner").is(nodeId));
+    }
+
+    /**
+     * Recompute one batch against the current training structure and write the snapshots
+     * that changed. Returns the number of enrollments written.
+     */
+    private int recompute(String trainingId, List<Enrollment> batch) {
+        Query trainingQuery = Query.query(Criteria.where("_id").is(trainingId));
+        trainingQuery.fields().include("levels", "structureVersion");
+        Training training = mongoTemplate.findOne(trainingQuery, Training.class);
+        if (training == null || training.getLevels() == null) {
+            return 0; // training deleted meanwhile
+        }
+        SessionIndex index = structureService.index(training, training.getStructureVersion());
+
+        BulkOperations bulk = null;
+        Instant now = Instant.now();
+        for (Enrollment e : batch) {
+            ProgressSnapshot snapshot = ProgressCalculator.compute(e, index);
+            if (Objects.equals(e.getStructureVersion(), training.getStructureVersion())
+                    && sameProgress(snapshot, e.getProgressSnapshot())) continue;
+            if (bulk == null) bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Enrollment.class);
+            bulk.updateOne(
+                    Query.query(Criteria.where("_id").is(e.getId()).and("updatedAt").is(e.getUpdatedAt())),
+                    new Update().set("progressSnapshot", snapshot)
+                            .set("structureVersion", training.getStructureVersion())
+                            .set("updatedAt", now));
+        }
+        return bulk == null ? 0 : bulk.execute().getModifiedCount();
+    }
+
+    /** completedAt of a newly completed enrollment is "now", so it is not compared. */
+    private static boolean sameProgress(ProgressSnapshot a, ProgressSnapshot b) {
+        return b != null
+                && a.getTotalSessions() == b.getTotalSessions()
+                && a.getAttendedCount() == b.getAttendedCount()
+                && a.getMissedCount() == b.getMissedCount()
+                && a.isCompleted() == b.isCompleted()
+                && a.isEligibleForCertificate() == b.isEligibleForCertificate()
+                && Objects.equals(a.getLevelsValidated(), b.getLevelsValidated());
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private record Batch(String lastId, int size, CompletableFuture<Integer> result) {}
+}
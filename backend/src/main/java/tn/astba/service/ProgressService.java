@@ -2,13 +2,20 @@ package tn.astba.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import tn.astba.domain.*;
 import tn.astba.dto.*;
+import tn.astba.exception.ResourceNotFoundException;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -16,19 +23,41 @@ import java.util.Map;
 public class ProgressService {
 
     private final EnrollmentService enrollmentService;
-    private final TrainingService trainingService;
+    private final MongoTemplate mongoTemplate;
+    private final TrainingStructureService structureService;
 
     /**
      * Get progress for all enrollments of a student.
+     * <p>
+     * Two queries whatever the number of enrollments: the student's enrollments, then
+     * their trainings in one {@code $in} (title and levels only, not the document).
+     * The student is only looked up when there is no enrollment, to answer 404 for an
+     * unknown student. An enrollment whose training no longer exists is a 404 as well.
+     * </p>
      */
     public List<StudentProgressResponse> getStudentProgress(String studentId) {
-        List<EnrollmentResponse> enrollments = enrollmentService.findByStudentId(studentId);
-        List<StudentProgressResponse> result = new ArrayList<>();
+        Query enrollmentQuery = Query.query(Criteria.where("studentId").is(studentId));
+        enrollmentQuery.fields().include("trainingId", "structureVersion", "attendance", "progressSnapshot");
+        List<Enrollment> enrollments = mongoTemplate.find(enrollmentQuery, Enrollment.class);
+        if (enrollments.isEmpty()) {
+            if (!mongoTemplate.exists(Query.query(Criteria.where("_id").is(studentId)), Student.class)) {
+                throw new ResourceNotFoundException("Étudiant", "id", studentId);
+            }
+            return List.of();
+        }
 
-        for (EnrollmentResponse er : enrollments) {
-            Enrollment enrollment = enrollmentService.getEnrollmentOrThrow(er.getId());
-            Training training = trainingService.getTrainingOrThrow(er.getTrainingId());
+        Set<String> trainingIds = new HashSet<>();
+        enrollments.forEach(e -> trainingIds.add(e.getTrainingId()));
+        Map<String, Training> trainings = new HashMap<>();
+        mongoTemplate.find(trainingQuery(Criteria.where("_id").in(trainingIds)), Training.class)
+                .forEach(t -> trainings.put(t.getId(), t));
 
+        List<StudentProgressResponse> result = new ArrayList<>(enrollments.size());
+        for (Enrollment enrollment : enrollments) {
+            Training training = trainings.get(enrollment.getTrainingId());
+            if (training == null) {
+                throw new ResourceNotFoundException("Formation", "id", enrollment.getTrainingId());
+            }
             result.add(buildProgressResponse(enrollment, training));
         }
         return result;
@@ -39,23 +68,35 @@ public class ProgressService {
      */
     public StudentProgressResponse getEnrollmentProgress(String enrollmentId) {
         Enrollment enrollment = enrollmentService.getEnrollmentOrThrow(enrollmentId);
-        Training training = trainingService.getTrainingOrThrow(enrollment.getTrainingId());
+        Training training = mongoTemplate.findOne(
+                trainingQuery(Criteria.where("_id").is(enrollment.getTrainingId())), Training.class);
+        if (training == null) {
+            throw new ResourceNotFoundException("Formation", "id", enrollment.getTrainingId());
+        }
         return buildProgressResponse(enrollment, training);
     }
 
+    /** Trainings without the (potentially large) attached document. */
+    private static Query trainingQuery(Criteria criteria) {
+        Query query = Query.query(criteria);
+        query.fields().include("title", "levels", "structureVersion");
+        return query;
+    }
+
     private StudentProgressResponse buildProgressResponse(Enrollment enrollment, Training training) {
         List<MissedSessionInfo> missedSessions = new ArrayList<>();
         Map<String, AttendanceEntry> attendance = enrollment.getAttendance();
+        SessionIndex index = structureService.index(training, enrollment.getStructureVersion());
 
-        for (Level level : training.getLevels()) {
-            for (Session session : level.getSessions()) {
-                AttendanceEntry entry = attendance != null ? attendance.get(session.getSessionId()) : null;
+        for (int l = 0; l < index.levelCount(); l++) {
+            for (int i = index.levelStart(l); i < index.levelEnd(l); i++) {
+                AttendanceEntry entry = attendance != null ? attendance.get(index.sessionId(i)) : null;
                 if (entry == null || entry.getStatus() == AttendanceStatus.ABSENT) {
                     missedSessions.add(MissedSessionInfo.builder()
-                            .sessionId(session.getSessionId())
-                            .levelNumber(level.getLevelNumber())
-                            .sessionNumber(session.getSessionNumber())
-                            .sessionTitle(session.getTitle())
+                            .sessionId(index.sessionId(i))
+                            .levelNumber(index.levelNumber(l))
+                            .sessionNumber(index.sessionNumber(i))
+                            .sessionTitle(index.sessionTitle(i))
                             .status(entry != null ? entry.getStatus().name() : "NON_MARQUÉ")
                             .build());
                 }
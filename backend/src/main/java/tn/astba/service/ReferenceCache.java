@@ -0,0 +1,190 @@
+package tn.astba.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tn.astba.domain.Group;
+import tn.astba.domain.Training;
+import tn.astba.domain.User;
+import tn.astba.repository.GroupRepository;
+import tn.astba.repository.TrainingRepository;
+import tn.astba.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of the reference documents looked up on almost every
+ * request: trainings, groups and users, by id.
+ * <p>
+ * Backed by Caffeine, whose W-TinyLFU admission keeps the few hot documents resident
+ * when a burst of one-off lookups goes through. Service write paths evict what they
+ * change; writes made by another node are only seen once the entry expires, after
+ * {@code astba.cache.ttl-seconds} (0 keeps entries until evicted, for a single node).
+ * Trainings are weighed by the size of their embedded PDF so that a few large documents
+ * cannot push every other training out. Missing ids are not cached. Lookups go through
+ * the {@link RequestIdentityMap} first, so a request sees one instance per id, and
+ * concurrent misses on the same id share one query through {@link SingleFlight}.
+ * </p>
+ * Cached instances are shared between requests and must not be modified: write paths
+ * load their own copy from the repository.
+ */
+@Slf4j
+@Component
+public class ReferenceCache implements MeterBinder {
+
+    private final TrainingRepository trainingRepository;
+    private final GroupRepository groupRepository;
+    private final UserRepository userRepository;
+    private final RequestIdentityMap identityMap;
+    private final SingleFlight singleFlight;
+
+    private final Tier<Training> trainings;
+    private final Tier<Group> groups;
+    private final Tier<User> users;
+
+    public ReferenceCache(TrainingRepository trainingRepository,
+                          GroupRepository groupRepository,
+                          UserRepository userRepository,
+                          RequestIdentityMap identityMap,
+                          SingleFlight singleFlight,
+                          @Value("${astba.cache.ttl-seconds:0}") long ttlSeconds,
+                          @Value("${astba.cache.max-size:10000}") long maxSize,
+                          @Value("${astba.cache.training-max-kb:65536}") long trainingMaxKb) {
+        this.trainingRepository = trainingRepository;
+        this.groupRepository = groupRepository;
+        this.userRepository = userRepository;
+        this.identityMap = identityMap;
+        this.singleFlight = singleFlight;
+        this.trainings = new Tier<>("trainings", Training.class, builder(ttlSeconds)
+                .maximumWeight(trainingMaxKb)
+                .weigher((String id, Training t) -> 1 + (t.getDocumentBase64() != null
+                        ? t.getDocumentBase64().length() / 1024 : 0))
+                .build());
+        this.groups = new Tier<>("groups", Group.class, builder(ttlSeconds).maximumSize(maxSize).build());
+        this.users = new Tier<>("users", User.class, builder(ttlSeconds).maximumSize(maxSize).build());
+        log.debug("Cache des références: {} entrées max, formations {} Ko max, ttl={}s",
+                maxSize, trainingMaxKb, ttlSeconds);
+    }
+
+    private static Caffeine<Object, Object> builder(long ttlSeconds) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (ttlSeconds > 0) {
+            builder.expireAfterWrite(Duration.ofSeconds(ttlSeconds));
+        }
+        return builder;
+    }
+
+    public Optional<Training> training(String id) {
+        return get(trainings, id, trainingRepository::findById);
+    }
+
+    public Optional<Group> group(String id) {
+        return get(groups, id, groupRepository::findById);
+    }
+
+    public Optional<User> user(String id) {
+        return get(users, id, userRepository::findById);
+    }
+
+    public void evictTraining(String id) {
+        evict(trainings, id);
+    }
+
+    public void evictGroup(String id) {
+        evict(groups, id);
+    }
+
+    public void evictUser(String id) {
+        evict(users, id);
+    }
+
+    public void invalidateAll() {
+        for (Tier<?> tier : List.of(trainings, groups, users)) {
+            tier.generation.incrementAndGet();
+            tier.cache.invalidateAll();
+        }
+    }
+
+    private <T> Optional<T> get(Tier<T> tier, String id, Function<String, Optional<T>> finder) {
+        if (id == null) return Optional.empty();
+        return identityMap.get(tier.type, id, k -> {
+            T cached = tier.cache.getIfPresent(k);
+            if (cached != null) return Optional.of(cached);
+            return singleFlight.load(tier.name, k, () -> {
+                long generation = tier.generation.get();
+                Optional<T> found = finder.apply(k);
+                found.ifPresent(value -> {
+                    tier.cache.put(k, value);
+                    // Evicted while the query ran: what was read may predate the write
+                    if (tier.generation.get() != generation) tier.cache.invalidate(k);
+                });
+                return found;
+            });
+        });
+    }
+
+    private <T> void evict(Tier<T> tier, String id) {
+        if (id == null) return;
+        tier.generation.incrementAndGet();
+        singleFlight.forget(tier.name, id);
+        tier.cache.invalidate(id);
+        identityMap.evict(tier.type, id);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Tier<?> tier : List.of(trainings, groups, users)) {
+            bind(registry, tier.name, tier.cache);
+        }
+    }
+
+    private static void bind(MeterRegistry registry, String name, Cache<String, ?> cache) {
+        FunctionCounter.builder("astba.cache.gets", cache, c -> c.stats().hitCount())
+                .tag("cache", name)
+                .tag("result", "hit")
+                .description("Lookups served from the reference cache")
+                .register(registry);
+        FunctionCounter.builder("astba.cache.gets", cache, c -> c.stats().missCount())
+                .tag("cache", name)
+                .tag("result", "miss")
+                .description("Lookups that went to MongoDB")
+                .register(registry);
+        FunctionCounter.builder("astba.cache.evictions", cache, c -> c.stats().evictionCount())
+                .tag("cache", name)
+                .description("Entries evicted for size or expiry (not invalidations)")
+                .register(registry);
+        Gauge.builder("astba.cache.size", cache, Cache::estimatedSize)
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("astba.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    /**
+     * One cached entity type. {@code generation} moves on every eviction, so a load that
+     * raced with a write can tell its result may be stale.
+     */
+    private static final class Tier<T> {
+        final String name;
+        final Class<T> type;
+        final Cache<String, T> cache;
+        final AtomicLong generation = new AtomicLong();
+
+        Tier(String name, Class<T> type, Cache<String, T> cache) {
+            this.name = name;
+            this.type = type;
+            this.cache = cache;
+        }
+    }
+}
@@ -1,19 +1,32 @@
 package tn.astba.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import tn.astba.domain.RefreshToken;
+import tn.astba.exception.BadRequestException;
 import tn.astba.repository.RefreshTokenRepository;
 import tn.astba.security.JwtService;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HexFormat;
-import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
 
 @Slf4j
 @Service
@@ -22,17 +35,38 @@ public class RefreshTokenService {
 
     private final RefreshTokenRepository refreshTokenRepository;
     private final JwtService jwtService;
+    private final MeterRegistry meterRegistry;
+    private final MongoTemplate mongoTemplate;
+
+    /** How long revoked tokens are kept (e.g. to audit or detect replays) before being purged. */
+    @Value("${astba.jwt.refresh-revoked-retention-days:7}")
+    private long revokedRetentionDays;
+
+    /**
+     * A revoked token presented again within this window is rejected but not treated as theft:
+     * two tabs refreshing with the same cookie at the same moment is a normal race.
+     */
+    @Value("${astba.jwt.refresh-reuse-grace-seconds:10}")
+    private long reuseGraceSeconds;
+
+    private final AtomicLong storedTokens = new AtomicLong();
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("astba.refresh_tokens.stored", storedTokens);
+    }
 
     /**
-     * Persist a refresh token hash for the user.
+     * Persist a refresh token hash for the user, starting a new token family (one per login).
      */
     public void storeRefreshToken(String userId, String rawToken) {
         RefreshToken entity = RefreshToken.builder()
                 .userId(userId)
                 .tokenHash(hashToken(rawToken))
+                .familyId(UUID.randomUUID().toString())
                 .expiresAt(jwtService.getRefreshExpiration())
                 .build();
-        refreshTokenRepository.save(entity);
+        mongoTemplate.insert(entity);
     }
 
     /**
@@ -60,24 +94,109 @@ public class RefreshTokenService {
      * Revoke all refresh tokens for a user (e.g., on logout-all or password change).
      */
     public void revokeAllUserTokens(String userId) {
-        List<RefreshToken> tokens = refreshTokenRepository.findByUserIdAndRevokedAtIsNull(userId);
-        tokens.forEach(rt -> rt.setRevokedAt(Instant.now()));
-        refreshTokenRepository.saveAll(tokens);
+        mongoTemplate.updateMulti(
+                Query.query(where("userId").is(userId).and("revokedAt").is(null)),
+                Update.update("revokedAt", Instant.now()),
+                RefreshToken.class);
     }
 
     /**
-     * Rotate: revoke old, store new.
+     * First half of a rotation: atomically revoke the presented token if, and only if,
+     * it is still active. Of two concurrent refreshes with the same token exactly one wins.
+     * <p>
+     * A token that exists but was already revoked is a replay: outside the short grace
+     * window the whole family is revoked, logging out whoever holds its current token.
+     * </p>
+     *
+     * @return the consumed token (state before revocation)
      */
-    public void rotateRefreshToken(String userId, String oldRawToken, String newRawToken) {
-        revokeRefreshToken(oldRawToken);
-        storeRefreshToken(userId, newRawToken);
+    public RefreshToken consumeRefreshToken(String rawToken) {
+        String hash = hashToken(rawToken);
+        Instant now = Instant.now();
+        RefreshToken consumed = mongoTemplate.findAndModify(
+                Query.query(where("tokenHash").is(hash).and("revokedAt").is(null).and("expiresAt").gt(now)),
+                Update.update("revokedAt", now),
+                FindAndModifyOptions.options().returnNew(false),
+                RefreshToken.class);
+        if (consumed != null) {
+            return consumed;
+        }
+
+        refreshTokenRepository.findByTokenHash(hash)
+                .filter(rt -> rt.getRevokedAt() != null)
+                .filter(rt -> rt.getRevokedAt().isBefore(now.minusSeconds(reuseGraceSeconds)))
+                .ifPresent(this::revokeFamily);
+        throw new BadRequestException("Token de rafraîchissement révoqué ou introuvable");
+    }
+
+    /**
+     * Second half of a rotation: store the successor of a consumed token in the same family.
+     */
+    public void storeRotatedToken(RefreshToken consumed, String newRawToken) {
+        RefreshToken entity = RefreshToken.builder()
+                .userId(consumed.getUserId())
+                .tokenHash(hashToken(newRawToken))
+                .familyId(consumed.getFamilyId() != null ? consumed.getFamilyId() : consumed.getId())
+                .expiresAt(jwtService.getRefreshExpiration())
+                .build();
+        mongoTemplate.insert(entity);
+    }
+
+    private void revokeFamily(RefreshToken replayed) {
+        meterRegistry.counter("astba.refresh_tokens.reuse_detected").increment();
+        if (replayed.getFamilyId() == null) {
+            // Legacy token issued before families existed: the session cannot be isolated
+            log.warn("Réutilisation d'un refresh token révoqué: userId={}, révocation de toutes les sessions",
+                    replayed.getUserId());
+            revokeAllUserTokens(replayed.getUserId());
+            return;
+        }
+        log.warn("Réutilisation d'un refresh token révoqué: userId={}, famille={} révoquée",
+                replayed.getUserId(), replayed.getFamilyId());
+        mongoTemplate.updateMulti(
+                Query.query(where("familyId").is(replayed.getFamilyId()).and("revokedAt").is(null)),
+                Update.update("revokedAt", Instant.now()),
+                RefreshToken.class);
     }
 
     /**
      * Cleanup expired tokens.
+     * The TTL index on {@code expiresAt} normally does this already; this is the fallback
+     * when the index could not be created.
      */
-    public void cleanupExpired() {
-        refreshTokenRepository.deleteByExpiresAtBefore(Instant.now());
+    public long cleanupExpired() {
+        return refreshTokenRepository.deleteByExpiresAtBefore(Instant.now());
+    }
+
+    /**
+     * Purge revoked tokens older than the retention window.
+     */
+    public long cleanupRevoked() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(revokedRetentionDays));
+        return refreshTokenRepository.deleteByRevokedAtBefore(cutoff);
+    }
+
+    /**
+     * Periodic compaction of the refresh_tokens collection.
+     */
+    @Scheduled(fixedDelayString = "${astba.jwt.refresh-compaction-interval-ms:3600000}",
+               initialDelayString = "${astba.jwt.refresh-compaction-initial-delay-ms:60000}")
+    public void compact() {
+        long start = System.nanoTime();
+        try {
+            long expired = cleanupExpired();
+            long revoked = cleanupRevoked();
+            meterRegistry.counter("astba.refresh_tokens.purged", "reason", "expired").increment(expired);
+            meterRegistry.counter("astba.refresh_tokens.purged", "reason", "revoked").increment(revoked);
+            storedTokens.set(refreshTokenRepository.count());
+            log.info("Compaction des refresh tokens: {} expirés, {} révoqués supprimés, {} restants",
+                    expired, revoked, storedTokens.get());
+        } catch (Exception e) {
+            log.warn("Compaction des refresh tokens échouée: {}", e.getMessage());
+        } finally {
+            meterRegistry.timer("astba.refresh_tokens.compaction")
+                    .record(Duration.ofNanos(System.nanoTime() - start));
+        }
     }
 
     private String hashToken(String rawToken) {
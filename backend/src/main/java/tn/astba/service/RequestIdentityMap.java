@@ -0,0 +1,67 @@
+package tn.astba.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * First-level cache of the documents loaded by id during the current HTTP request, so a
+ * request that validates, reloads and renders the same training or group fetches it once.
+ * <p>
+ * The map lives in a request attribute and disappears with the request, so nothing
+ * leaks across requests. Outside a request (scheduled jobs, streamed response bodies,
+ * startup listeners) every lookup goes straight to the loader. Write paths must
+ * {@link #evict} what they change through an update query, for the rest of the request
+ * to see it.
+ * </p>
+ */
+@Component
+public class RequestIdentityMap {
+
+    private static final String ATTRIBUTE = RequestIdentityMap.class.getName();
+
+    /**
+     * The instance already loaded for this (type, id) in the current request, otherwise
+     * the loader's result, remembered if present.
+     */
+    public <T> Optional<T> get(Class<T> type, String id, Function<String, Optional<T>> loader) {
+        Map<Key, Object> loaded = current();
+        if (loaded == null || id == null) {
+            return loader.apply(id);
+        }
+        Key key = new Key(type, id);
+        Object known = loaded.get(key);
+        if (known != null) {
+            return Optional.of(type.cast(known));
+        }
+        Optional<T> result = loader.apply(id);
+        result.ifPresent(value -> loaded.put(key, value));
+        return result;
+    }
+
+    public void evict(Class<?> type, String id) {
+        Map<Key, Object> loaded = current();
+        if (loaded != null && id != null) {
+            loaded.remove(new Key(type, id));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Key, Object> current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) return null;
+        Map<Key, Object> loaded = (Map<Key, Object>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (loaded == null) {
+            loaded = new HashMap<>();
+            attributes.setAttribute(ATTRIBUTE, loaded, RequestAttributes.SCOPE_REQUEST);
+        }
+        return loaded;
+    }
+
+    private record Key(Class<?> type, String id) {}
+}
@@ -0,0 +1,174 @@
+package tn.astba.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import tn.astba.domain.Group;
+import tn.astba.domain.Seance;
+import tn.astba.domain.Training;
+import tn.astba.domain.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps the display names denormalized on {@link Seance} documents (training title and
+ * document URL, group name, trainer name), so calendar reads need no lookup at all.
+ * <p>
+ * A séance gets its names when it is created or edited. When a training, group or user
+ * is renamed, the séances referencing it are rewritten with one {@code updateMulti} on a
+ * background thread; the new value is read when the refresh runs, so refreshes queued
+ * for the same document collapse into one. A rename refreshed between {@link #fill} and
+ * the save of a séance would leave that séance with the old name, so a saved séance queues
+ * the refreshes of its references again ({@link #saved}); a refresh only rewrites the
+ * séances whose names differ. Séances written before denormalization are filled in at startup.
+ * </p>
+ */
+@Slf4j
+@Service
+public class SeanceReadModel {
+
+    private final MongoTemplate mongoTemplate;
+    private final ReferenceCache referenceCache;
+    private final ExecutorService executor;
+
+    /** "kind:id" of the refreshes queued and not started yet */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public SeanceReadModel(MongoTemplate mongoTemplate, ReferenceCache referenceCache) {
+        this(mongoTemplate, referenceCache, Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "seance-read-model");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    SeanceReadModel(MongoTemplate mongoTemplate, ReferenceCache referenceCache, ExecutorService executor) {
+        this.mongoTemplate = mongoTemplate;
+        this.referenceCache = referenceCache;
+        this.executor = executor;
+    }
+
+    /**
+     * Set the display names of a séance about to be saved.
+     */
+    public void fill(Seance seance) {
+        Training training = referenceCache.training(seance.getTrainingId()).orElse(null);
+        seance.setTrainingTitle(training != null ? training.getTitle() : null);
+        seance.setTrainingDocumentUrl(training != null ? documentUrl(training) : null);
+        seance.setGroupName(referenceCache.group(seance.getGroupId()).map(Group::getName).orElse(null));
+        seance.setTrainerName(referenceCache.user(seance.getTrainerId()).map(SeanceReadModel::displayName).orElse(null));
+    }
+
+    /**
+     * Queue the refreshes of the references of a séance just saved, in case one of them
+     * was renamed after {@link #fill} read its name.
+     */
+    public void saved(Seance seance) {
+        trainingChanged(seance.getTrainingId());
+        groupChanged(seance.getGroupId());
+        userChanged(seance.getTrainerId());
+    }
+
+    /** The training's title or document changed. */
+    public void trainingChanged(String trainingId) {
+        submit("training", trainingId, () -> referenceCache.training(trainingId).ifPresent(t -> {
+            Map<String, Object> names = new LinkedHashMap<>();
+            names.put("trainingTitle", t.getTitle());
+            names.put("trainingDocumentUrl", documentUrl(t));
+            refresh("trainingId", trainingId, names);
+        }));
+    }
+
+    public void groupChanged(String groupId) {
+        submit("group", groupId, () -> referenceCache.group(groupId).ifPresent(g -> refresh(
+                "groupId", groupId, Collections.singletonMap("groupName", g.getName()))));
+    }
+
+    public void userChanged(String userId) {
+        submit("user", userId, () -> referenceCache.user(userId).ifPresent(u -> refresh(
+                "trainerId", userId, Collections.singletonMap("trainerName", displayName(u)))));
+    }
+
+    /**
+     * Queue a refresh for every training, group and trainer still referenced by a séance
+     * without denormalized names.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            for (String trainingId : missing("trainingTitle", "trainingId")) trainingChanged(trainingId);
+            for (String groupId : missing("groupName", "groupId")) groupChanged(groupId);
+            for (String trainerId : missing("trainerName", "trainerId")) userChanged(trainerId);
+        } catch (Exception e) {
+            log.warn("Dénormalisation initiale des séances impossible: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<String> missing(String field, String reference) {
+        return mongoTemplate.findDistinct(Query.query(Criteria.where(field).exists(false)),
+                reference, Seance.class, String.class);
+    }
+
+    private void submit(String kind, String id, Runnable refresh) {
+        if (id == null) return;
+        String key = kind + ":" + id;
+        if (!pending.add(key)) return;
+        try {
+            executor.execute(() -> {
+                pending.remove(key);
+                try {
+                    refresh.run();
+                } catch (Exception e) {
+                    log.warn("Mise à jour des séances impossible: {}={}, {}", kind, id, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+        }
+    }
+
+    /** Set the names on the séances of the reference where at least one differs. */
+    private void refresh(String reference, String id, Map<String, Object> names) {
+        Update update = new Update();
+        List<Criteria> stale = new ArrayList<>();
+        names.forEach((field, value) -> {
+            update.set(field, value);
+            stale.add(Criteria.where(field).ne(value));
+        });
+        Query query = Query.query(Criteria.where(reference).is(id).orOperator(stale));
+        long modified = mongoTemplate.updateMulti(query, update, Seance.class).getModifiedCount();
+        if (modified > 0) {
+            log.debug("Séances mises à jour: {}={}, {} séance(s)", reference, id, modified);
+        }
+    }
+
+    private static String documentUrl(Training training) {
+        return training.getDocumentBase64() != null && !training.getDocumentBase64().isBlank()
+                ? "/trainings/" + training.getId() + "/document"
+                : null;
+    }
+
+    private static String displayName(User user) {
+        return user.getFirstName() + " " + user.getLastName();
+    }
+}
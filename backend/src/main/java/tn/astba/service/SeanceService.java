@@ -28,6 +28,8 @@ public class SeanceService {
     private final TrainingService trainingService;
     private final GroupService groupService;
     private final UserRepository userRepository;
+    private final ReferenceCache referenceCache;
+    private final SeanceReadModel seanceReadModel;
     private final NotificationService notificationService;
     private final AttendanceService attendanceService;
     private final EnrollmentRepository enrollmentRepository;
@@ -38,7 +40,7 @@ public class SeanceService {
 
     public SeanceResponse create(SeanceCreateRequest request) {
         // Validate trainer exists
-        User trainer = userRepository.findById(request.getTrainerId())
+        User trainer = referenceCache.user(request.getTrainerId())
                 .orElseThrow(() -> new ResourceNotFoundException("Formateur", "id", request.getTrainerId()));
         if (!trainer.getRoles().contains(Role.TRAINER)) {
             throw new BadRequestException("L'utilisateur n'est pas un formateur");
@@ -67,8 +69,10 @@ public class SeanceService {
                 .sessionNumber(request.getSessionNumber())
                 .title(request.getTitle())
                 .build();
+        seanceReadModel.fill(seance);
 
         Seance saved = seanceRepository.save(seance);
+        seanceReadModel.saved(saved);
         log.debug("Séance créée: id={}", saved.getId());
 
         // Notify trainer (in-app)
@@ -129,8 +133,10 @@ public class SeanceService {
         seance.setLevelNumber(request.getLevelNumber());
         seance.setSessionNumber(request.getSessionNumber());
         seance.setTitle(request.getTitle());
+        seanceReadModel.fill(seance);
 
         Seance saved = seanceRepository.save(seance);
+        seanceReadModel.saved(saved);
 
         // Notify trainer of change
         notificationService.notifyUser(
@@ -377,7 +383,7 @@ public class SeanceService {
         SessionReport saved = sessionReportRepository.save(report);
 
         // Notify admins & managers
-        String trainerName = userRepository.findById(trainerId)
+        String trainerName = referenceCache.user(trainerId)
                 .map(u -> u.getFirstName() + " " + u.getLastName())
                 .orElse("Formateur");
 
@@ -439,10 +445,17 @@ public class SeanceService {
                 .levelNumber(s.getLevelNumber())
                 .sessionNumber(s.getSessionNumber())
                 .title(s.getTitle())
+                .trainingTitle(s.getTrainingTitle())
+                .trainingDocumentUrl(s.getTrainingDocumentUrl())
+                .groupName(s.getGroupName())
+                .trainerName(s.getTrainerName())
                 .createdAt(s.getCreatedAt())
                 .updatedAt(s.getUpdatedAt());
+        if (s.getTrainingTitle() != null && s.getGroupName() != null && s.getTrainerName() != null) {
+            return builder.build();
+        }
 
-        // Enrich with names
+        // Not denormalized yet (written before SeanceReadModel): look the names up
         try {
             var training = trainingService.getTrainingOrThrow(s.getTrainingId());
             builder.trainingTitle(training.getTitle());
@@ -455,7 +468,7 @@ public class SeanceService {
             builder.groupName(groupService.getGroupOrThrow(s.getGroupId()).getName());
         } catch (Exception ignored) {}
         try {
-            userRepository.findById(s.getTrainerId()).ifPresent(u ->
+            referenceCache.user(s.getTrainerId()).ifPresent(u ->
                     builder.trainerName(u.getFirstName() + " " + u.getLastName()));
         } catch (Exception ignored) {}
 
@@ -473,7 +486,7 @@ public class SeanceService {
                 .createdAt(r.getCreatedAt());
 
         try {
-            userRepository.findById(r.getTrainerId()).ifPresent(u ->
+            referenceCache.user(r.getTrainerId()).ifPresent(u ->
                     builder.trainerName(u.getFirstName() + " " + u.getLastName()));
         } catch (Exception ignored) {}
 
@@ -0,0 +1,91 @@
+package tn.astba.service;
+
+import tn.astba.domain.Level;
+import tn.astba.domain.Session;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precompiled, immutable view of one training structure version: sessions flattened
+ * in level/session order with their level boundaries, so progress is computed with
+ * array walks instead of nested list traversals. Instances are cached per
+ * (training, version) for the lifetime of the process since versions never change.
+ */
+public final class SessionIndex {
+
+    private final String[] sessionIds;
+    private final int[] sessionNumbers;
+    private final String[] sessionTitles;
+    /** levelStart[l]..levelStart[l + 1] are the sessions of level l */
+    private final int[] levelStart;
+    private final int[] levelNumbers;
+    private final Map<String, Integer> positions;
+
+    private SessionIndex(List<Level> levels) {
+        List<Session> flat = new ArrayList<>();
+        levelStart = new int[levels.size() + 1];
+        levelNumbers = new int[levels.size()];
+        for (int l = 0; l < levels.size(); l++) {
+            Level level = levels.get(l);
+            levelStart[l] = flat.size();
+            levelNumbers[l] = level.getLevelNumber();
+            if (level.getSessions() != null) flat.addAll(level.getSessions());
+        }
+        levelStart[levels.size()] = flat.size();
+
+        sessionIds = new String[flat.size()];
+        sessionNumbers = new int[flat.size()];
+        sessionTitles = new String[flat.size()];
+        positions = new HashMap<>(flat.size() * 2);
+        for (int i = 0; i < flat.size(); i++) {
+            Session s = flat.get(i);
+            sessionIds[i] = s.getSessionId();
+            sessionNumbers[i] = s.getSessionNumber();
+            sessionTitles[i] = s.getTitle();
+            positions.putIfAbsent(s.getSessionId(), i);
+        }
+    }
+
+    public static SessionIndex compile(List<Level> levels) {
+        return new SessionIndex(levels != null ? levels : List.of());
+    }
+
+    public int sessionCount() {
+        return sessionIds.length;
+    }
+
+    public int levelCount() {
+        return levelNumbers.length;
+    }
+
+    public int levelNumber(int level) {
+        return levelNumbers[level];
+    }
+
+    public int levelStart(int level) {
+        return levelStart[level];
+    }
+
+    public int levelEnd(int level) {
+        return levelStart[level + 1];
+    }
+
+    public String sessionId(int position) {
+        return sessionIds[position];
+    }
+
+    public int sessionNumber(int position) {
+        return sessionNumbers[position];
+    }
+
+    public String sessionTitle(int position) {
+        return sessionTitles[position];
+    }
+
+    public boolean contains(String sessionId) {
+        return positions.containsKey(sessionId);
+    }
+}
@@ -0,0 +1,101 @@
+package tn.astba.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical lookups: the first caller for a (kind, id) runs the
+ * query, callers arriving while it is in flight wait for and share its result (or its
+ * exception) instead of issuing the same query again.
+ * <p>
+ * Nothing is kept once the call completes; caching is the caller's business. A write
+ * must {@link #forget} the key so that lookups made after it do not join a query that
+ * started before it.
+ * </p>
+ */
+@Component
+public class SingleFlight implements MeterBinder {
+
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /** kind -> calls served by another caller's query */
+    private final Map<String, LongAdder> coalesced = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry registry;
+
+    @SuppressWarnings("unchecked")
+    public <T> T load(String kind, String id, Supplier<T> loader) {
+        Key key = new Key(kind, id);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            counter(kind).increment();
+            return (T) join(running);
+        }
+        try {
+            T result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public void forget(String kind, String id) {
+        inFlight.remove(new Key(kind, id));
+    }
+
+    public long coalescedCount(String kind) {
+        LongAdder count = coalesced.get(kind);
+        return count != null ? count.sum() : 0;
+    }
+
+    private static Object join(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    private LongAdder counter(String kind) {
+        return coalesced.computeIfAbsent(kind, k -> {
+            LongAdder count = new LongAdder();
+            if (registry != null) register(registry, k, count);
+            return count;
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        coalesced.forEach((kind, count) -> register(registry, kind, count));
+        Gauge.builder("astba.singleflight.in.flight", inFlight, Map::size)
+                .description("Lookups currently being queried")
+                .register(registry);
+    }
+
+    private static void register(MeterRegistry registry, String kind, LongAdder count) {
+        FunctionCounter.builder("astba.singleflight.coalesced", count, LongAdder::sum)
+                .tag("kind", kind)
+                .description("Lookups that shared a query already in flight instead of issuing their own")
+                .register(registry);
+    }
+
+    private record Key(String kind, String id) {}
+}
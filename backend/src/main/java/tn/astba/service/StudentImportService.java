@@ -0,0 +1,268 @@
+package tn.astba.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import tn.astba.domain.Student;
+import tn.astba.dto.StudentCreateRequest;
+import tn.astba.dto.StudentImportError;
+import tn.astba.dto.StudentImportResponse;
+import tn.astba.exception.BadRequestException;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Bulk student import from a CSV upload.
+ * <p>
+ * The file is read one record at a time and processed in chunks of
+ * {@code astba.import.batch-size} rows: each chunk is parsed and validated in parallel
+ * (same constraints as {@link StudentCreateRequest} plus the age rule), then deduplicated
+ * in file order against the emails/phones already in the database (fetched once up
+ * front) and earlier rows of the file, and finally inserted with one {@code insertMany}.
+ * In dry-run mode nothing is written and the report is identical.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StudentImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final DateTimeFormatter FRENCH_DATE = DateTimeFormatter.ofPattern("d/M/uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    private static final Map<String, String> COLUMN_ALIASES = Map.ofEntries(
+            Map.entry("firstname", "firstName"), Map.entry("prenom", "firstName"),
+            Map.entry("lastname", "lastName"), Map.entry("nom", "lastName"),
+            Map.entry("birthdate", "birthDate"), Map.entry("datenaissance", "birthDate"),
+            Map.entry("datedenaissance", "birthDate"), Map.entry("naissance", "birthDate"),
+            Map.entry("phone", "phone"), Map.entry("telephone", "phone"), Map.entry("tel", "phone"),
+            Map.entry("email", "email"), Map.entry("mail", "email"), Map.entry("courriel", "email"),
+            Map.entry("notes", "notes"), Map.entry("note", "notes"), Map.entry("remarques", "notes"),
+            Map.entry("imageurl", "imageUrl"));
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("firstName", "lastName", "birthDate", "email");
+
+    private final MongoTemplate mongoTemplate;
+    private final StudentService studentService;
+    private final TypeaheadService typeaheadService;
+    private final Validator validator;
+
+    @Value("${astba.import.batch-size:500}")
+    private int batchSize;
+
+    private record Row(int line, List<String> values) {}
+
+    private record ParsedRow(int line, StudentCreateRequest request, List<StudentImportError> errors) {}
+
+    public StudentImportResponse importCsv(MultipartFile file, boolean dryRun) {
+        if (file == null || file.isEmpty()) {
+            throw new BadRequestException("Le fichier est vide");
+        }
+
+        Set<String> knownEmails = new HashSet<>();
+        Set<String> knownPhones = new HashSet<>();
+        loadExistingContacts(knownEmails, knownPhones);
+
+        Report report = new Report(dryRun);
+        try (CsvReader csv = new CsvReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            Map<String, Integer> columns = mapColumns(csv.readHeader());
+            List<Row> chunk = new ArrayList<>(batchSize);
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                chunk.add(new Row(csv.recordLine(), record));
+                if (chunk.size() >= batchSize) {
+                    processChunk(chunk, columns, knownEmails, knownPhones, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(chunk, columns, knownEmails, knownPhones, report);
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("Fichier CSV illisible: " + e.getMessage());
+        }
+
+        log.info("Import d'élèves{}: {} lignes, {} importées, {} rejetées",
+                dryRun ? " (simulation)" : "", report.total, report.imported, report.rejected);
+        return report.toResponse();
+    }
+
+    private void processChunk(List<Row> chunk, Map<String, Integer> columns,
+                              Set<String> knownEmails, Set<String> knownPhones, Report report) {
+        // Parsing and validation are independent per row
+        List<ParsedRow> parsed = chunk.parallelStream().map(row -> parse(row, columns)).toList();
+
+        // Deduplication depends on file order, so it runs sequentially
+        List<Student> batch = new ArrayList<>(parsed.size());
+        for (ParsedRow row : parsed) {
+            report.total++;
+            if (!row.errors().isEmpty()) {
+                report.reject(row.errors());
+                continue;
+            }
+            StudentCreateRequest request = row.request();
+            String email = request.getEmail().toLowerCase(Locale.ROOT);
+            String phone = request.getPhone();
+            if (knownEmails.contains(email)) {
+                report.reject(List.of(error(row.line(), "email", "Un élève avec l'email '" + request.getEmail() + "' existe déjà")));
+                continue;
+            }
+            if (phone != null && knownPhones.contains(phone)) {
+                report.reject(List.of(error(row.line(), "phone", "Un élève avec le numéro '" + phone + "' existe déjà")));
+                continue;
+            }
+            knownEmails.add(email);
+            if (phone != null) knownPhones.add(phone);
+
+            batch.add(Student.builder()
+                    .firstName(request.getFirstName().trim())
+                    .lastName(request.getLastName().trim())
+                    .birthDate(request.getBirthDate())
+                    .phone(phone)
+                    .email(request.getEmail())
+                    .imageUrl(request.getImageUrl())
+                    .notes(request.getNotes())
+                    .build());
+        }
+
+        if (!batch.isEmpty() && !report.dryRun) {
+            mongoTemplate.insert(batch, Student.class).forEach(typeaheadService::onStudentSaved);
+        }
+        report.imported += batch.size();
+    }
+
+    private ParsedRow parse(Row row, Map<String, Integer> columns) {
+        List<StudentImportError> errors = new ArrayList<>();
+        StudentCreateRequest request = StudentCreateRequest.builder()
+                .firstName(value(row, columns, "firstName"))
+                .lastName(value(row, columns, "lastName"))
+                .phone(value(row, columns, "phone"))
+                .email(value(row, columns, "email"))
+                .imageUrl(value(row, columns, "imageUrl"))
+                .notes(value(row, columns, "notes"))
+                .build();
+
+        String birthDate = value(row, columns, "birthDate");
+        if (birthDate != null) {
+            try {
+                request.setBirthDate(parseDate(birthDate));
+            } catch (DateTimeParseException e) {
+                errors.add(error(row.line(), "birthDate", "Date invalide (attendu AAAA-MM-JJ ou JJ/MM/AAAA): " + birthDate));
+            }
+        }
+
+        for (ConstraintViolation<StudentCreateRequest> v : validator.validate(request)) {
+            if ("birthDate".equals(v.getPropertyPath().toString()) && !errors.isEmpty()) continue;
+            errors.add(error(row.line(), v.getPropertyPath().toString(), v.getMessage()));
+        }
+        if (errors.isEmpty()) {
+            try {
+                studentService.validateAge(request.getBirthDate());
+            } catch (BadRequestException e) {
+                errors.add(error(row.line(), "birthDate", e.getMessage()));
+            }
+        }
+        return new ParsedRow(row.line(), request, errors);
+    }
+
+    private void loadExistingContacts(Set<String> emails, Set<String> phones) {
+        Query query = new Query();
+        query.fields().include("email", "phone");
+        try (Stream<Student> all = mongoTemplate.stream(query, Student.class)) {
+            all.forEach(s -> {
+                if (s.getEmail() != null) emails.add(s.getEmail().toLowerCase(Locale.ROOT));
+                if (s.getPhone() != null && !s.getPhone().isBlank()) phones.add(s.getPhone());
+            });
+        }
+    }
+
+    private static Map<String, Integer> mapColumns(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String field = COLUMN_ALIASES.get(normalizeHeader(header.get(i)));
+            if (field != null) columns.putIfAbsent(field, i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(c -> !columns.containsKey(c)).toList();
+        if (!missing.isEmpty()) {
+            throw new BadRequestException("Colonnes obligatoires manquantes: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private static String normalizeHeader(String name) {
+        String folded = Normalizer.normalize(name.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return folded.replaceAll("[^a-z0-9]", "");
+    }
+
+    private static String value(Row row, Map<String, Integer> columns, String field) {
+        Integer index = columns.get(field);
+        if (index == null || index >= row.values().size()) return null;
+        String v = row.values().get(index).trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    private static LocalDate parseDate(String value) {
+        return value.contains("/") ? LocalDate.parse(value, FRENCH_DATE) : LocalDate.parse(value);
+    }
+
+    private static StudentImportError error(int line, String field, String message) {
+        return StudentImportError.builder().line(line).field(field).message(message).build();
+    }
+
+    private static final class Report {
+        final boolean dryRun;
+        int total;
+        int imported;
+        int rejected;
+        final List<StudentImportError> errors = new ArrayList<>();
+        boolean truncated;
+
+        Report(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+
+        void reject(List<StudentImportError> rowErrors) {
+            rejected++;
+            for (StudentImportError e : rowErrors) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(e);
+                } else {
+                    truncated = true;
+                }
+            }
+        }
+
+        StudentImportResponse toResponse() {
+            return StudentImportResponse.builder()
+                    .dryRun(dryRun)
+                    .totalRows(total)
+                    .imported(imported)
+                    .rejected(rejected)
+                    .errors(errors)
+                    .errorsTruncated(truncated)
+                    .build();
+        }
+    }
+}
@@ -24,7 +24,12 @@ import java.time.Period;
 @RequiredArgsConstructor
 public class StudentService {
 
+    private static final String FLIGHT_KIND = "students";
+
     private final StudentRepository studentRepository;
+    private final TypeaheadService typeaheadService;
+    private final RequestIdentityMap identityMap;
+    private final SingleFlight singleFlight;
 
     public Page<StudentResponse> findAll(String query, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("lastName", "firstName"));
@@ -58,12 +63,13 @@ public class StudentService {
                 .notes(request.getNotes())
                 .build();
         Student saved = studentRepository.save(student);
+        typeaheadService.onStudentSaved(saved);
         log.debug("Étudiant créé: id={}", saved.getId());
         return toResponse(saved);
     }
 
     public StudentResponse update(String id, StudentUpdateRequest request) {
-        Student student = getStudentOrThrow(id);
+        Student student = loadForUpdate(id);
 
         if (request.getFirstName() != null) student.setFirstName(request.getFirstName().trim());
         if (request.getLastName() != null) student.setLastName(request.getLastName().trim());
@@ -85,6 +91,9 @@ public class StudentService {
         if (request.getNotes() != null) student.setNotes(request.getNotes());
 
         Student saved = studentRepository.save(student);
+        singleFlight.forget(FLIGHT_KIND, id);
+        identityMap.evict(Student.class, id);
+        typeaheadService.onStudentSaved(saved);
         log.debug("Étudiant mis à jour: id={}", saved.getId());
         return toResponse(saved);
     }
@@ -94,12 +103,15 @@ public class StudentService {
             throw new ResourceNotFoundException("Étudiant", "id", id);
         }
         studentRepository.deleteById(id);
+        singleFlight.forget(FLIGHT_KIND, id);
+        identityMap.evict(Student.class, id);
+        typeaheadService.onStudentDeleted(id);
         log.debug("Étudiant supprimé: id={}", id);
     }
 
     // ── Validation helpers ──────────────────────────────────────
 
-    private void validateAge(LocalDate birthDate) {
+    void validateAge(LocalDate birthDate) {
         if (birthDate == null) return;
         int age = Period.between(birthDate, LocalDate.now()).getYears();
         if (age < 10 || age > 29) {
@@ -128,6 +140,16 @@ public class StudentService {
     // ── Helpers ──────────────────────────────────────────────────
 
     public Student getStudentOrThrow(String id) {
+        return identityMap.get(Student.class, id,
+                k -> singleFlight.load(FLIGHT_KIND, k, () -> studentRepository.findById(k)))
+                .orElseThrow(() -> new ResourceNotFoundException("Étudiant", "id", id));
+    }
+
+    /**
+     * Private copy for a write path: the instance returned by {@link #getStudentOrThrow}
+     * may be shared with concurrent requests and must not be modified.
+     */
+    private Student loadForUpdate(String id) {
         return studentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Étudiant", "id", id));
     }
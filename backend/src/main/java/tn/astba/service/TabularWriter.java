@@ -0,0 +1,89 @@
+package tn.astba.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes rows with a fixed set of columns either as CSV (header line, RFC 4180 quoting,
+ * UTF-8 BOM so spreadsheets detect the encoding) or as NDJSON (one flat object per line).
+ * Nothing is retained between rows.
+ * <p>
+ * CSV text cells that a spreadsheet would evaluate as a formula ({@code = + - @}, tab,
+ * CR) are prefixed with {@code '}, since names and notes are user-supplied.
+ * </p>
+ */
+class TabularWriter {
+
+    private final ExportFormat format;
+    private final ObjectMapper objectMapper;
+    private final Writer out;
+    private List<String> columns;
+
+    TabularWriter(ExportFormat format, ObjectMapper objectMapper, OutputStream out) {
+        this.format = format;
+        this.objectMapper = objectMapper;
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    void header(List<String> columns) throws IOException {
+        this.columns = columns;
+        if (format == ExportFormat.CSV) {
+            out.write('\uFEFF');
+            writeCsvLine(columns);
+        }
+    }
+
+    void row(List<?> values) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(values);
+            return;
+        }
+        Map<String, Object> object = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            object.put(columns.get(i), i < values.size() ? values.get(i) : null);
+        }
+        out.write(objectMapper.writeValueAsString(object));
+        out.write('\n');
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeCsvLine(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) out.write(',');
+            Object v = values.get(i);
+            if (v instanceof CharSequence text) {
+                out.write(escape(neutralize(text.toString())));
+            } else if (v != null) {
+                out.write(escape(v.toString()));
+            }
+        }
+        out.write("\r\n");
+    }
+
+    /** Defuse CSV/formula injection (OWASP): the cell is shown as text, not evaluated. */
+    static String neutralize(String value) {
+        if (value.isEmpty()) return value;
+        return switch (value.charAt(0)) {
+            case '=', '+', '-', '@', '\t', '\r' -> "'" + value;
+            default -> value;
+        };
+    }
+
+    private static String escape(String value) {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
@@ -20,6 +20,9 @@ import java.util.UUID;
 public class TrainingService {
 
     private final TrainingRepository trainingRepository;
+    private final TrainingStructureService structureService;
+    private final ReferenceCache referenceCache;
+    private final SeanceReadModel seanceReadModel;
 
     public List<TrainingResponse> findAll() {
         return trainingRepository.findAll().stream()
@@ -55,18 +58,26 @@ public class TrainingService {
                 .build();
 
         Training saved = trainingRepository.save(training);
+        structureService.publish(saved);
+        saved = trainingRepository.save(saved);
         log.debug("Formation créée: id={}, title={}", saved.getId(), saved.getTitle());
         return toResponse(saved);
     }
 
     public TrainingResponse update(String id, TrainingUpdateRequest request) {
-        Training training = getTrainingOrThrow(id);
+        Training training = loadForUpdate(id);
 
         if (request.getTitle() != null) training.setTitle(request.getTitle().trim());
         if (request.getDescription() != null) training.setDescription(request.getDescription());
-        if (request.getLevels() != null) training.setLevels(request.getLevels());
+        if (request.getLevels() != null) {
+            // New immutable version; existing enrollments keep measuring against theirs
+            training.setLevels(request.getLevels());
+            structureService.publish(training);
+        }
 
         Training saved = trainingRepository.save(training);
+        referenceCache.evictTraining(id);
+        if (request.getTitle() != null) seanceReadModel.trainingChanged(id);
         log.debug("Formation mise à jour: id={}", saved.getId());
         return toResponse(saved);
     }
@@ -76,6 +87,8 @@ public class TrainingService {
             throw new ResourceNotFoundException("Formation", "id", id);
         }
         trainingRepository.deleteById(id);
+        structureService.evict(id);
+        referenceCache.evictTraining(id);
         log.debug("Formation supprimée: id={}", id);
     }
 
@@ -97,7 +110,27 @@ public class TrainingService {
         return flat;
     }
 
+    /**
+     * Attach (or remove, when {@code base64} is null) the training's PDF document.
+     */
+    public void setDocument(String id, String base64, String filename) {
+        Training training = loadForUpdate(id);
+        training.setDocumentBase64(base64);
+        training.setDocumentFilename(filename);
+        trainingRepository.save(training);
+        referenceCache.evictTraining(id);
+        seanceReadModel.trainingChanged(id);
+    }
+
+    /**
+     * Shared, cached instance: read-only for callers.
+     */
     public Training getTrainingOrThrow(String id) {
+        return referenceCache.training(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Formation", "id", id));
+    }
+
+    private Training loadForUpdate(String id) {
         return trainingRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Formation", "id", id));
     }
@@ -112,6 +145,7 @@ public class TrainingService {
                 .description(t.getDescription())
                 .documentUrl(docUrl)
                 .levels(t.getLevels())
+                .structureVersion(t.getStructureVersion())
                 .createdAt(t.getCreatedAt())
                 .updatedAt(t.getUpdatedAt())
                 .build();
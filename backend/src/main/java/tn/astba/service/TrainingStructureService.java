@@ -0,0 +1,191 @@
+package tn.astba.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import tn.astba.domain.Level;
+import tn.astba.domain.Session;
+import tn.astba.domain.Training;
+import tn.astba.domain.TrainingStructure;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versioning of training structures (levels and sessions).
+ * <p>
+ * Every structural change publishes a new immutable {@link TrainingStructure} version,
+ * identified by the hash of its canonical content; the training keeps its current levels
+ * and version number, and each enrollment pins the version it was created against
+ * ({@code null} on enrollments older than versioning means version 1). Since a version never
+ * changes, its compiled {@link SessionIndex} is cached for the lifetime of the process.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrainingStructureService {
+
+    private static final int MAX_PUBLISH_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final ReferenceCache referenceCache;
+
+    /** "trainingId:version" -> compiled structure */
+    private final Map<String, SessionIndex> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Make the training's current levels a published version, creating a new one only
+     * if the content changed. Sets {@code structureVersion}/{@code structureHash} on the
+     * training; the caller saves it.
+     *
+     * @return the version of the training's current levels
+     */
+    public int publish(Training training) {
+        String hash = contentHash(training.getLevels());
+        if (training.getStructureVersion() != null && hash.equals(training.getStructureHash())) {
+            return training.getStructureVersion();
+        }
+
+        int version = training.getStructureVersion() != null ? training.getStructureVersion() + 1 : 1;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                mongoTemplate.insert(TrainingStructure.builder()
+                        .trainingId(training.getId())
+                        .version(version)
+                        .contentHash(hash)
+                        .levels(training.getLevels())
+                        .build());
+                break;
+            } catch (DuplicateKeyException e) {
+                // Another node published this number first: adopt it if it is the same
+                // structure, otherwise take the next number
+                TrainingStructure latest = latest(training.getId());
+                if (latest != null && hash.equals(latest.getContentHash())) {
+                    version = latest.getVersion();
+                    break;
+                }
+                if (attempt >= MAX_PUBLISH_ATTEMPTS) throw e;
+                version = latest != null ? latest.getVersion() + 1 : version + 1;
+            }
+        }
+        training.setStructureVersion(version);
+        training.setStructureHash(hash);
+        indexes.put(key(training.getId(), version), SessionIndex.compile(training.getLevels()));
+        log.info("Structure de formation publiée: trainingId={}, version={}", training.getId(), version);
+        return version;
+    }
+
+    /**
+     * The compiled structure an enrollment is measured against.
+     *
+     * @param training the training, used directly when the pinned version is its current one
+     * @param version  the pinned version, {@code null} meaning 1
+     */
+    public SessionIndex index(Training training, Integer version) {
+        int v = version != null ? version : 1;
+        Integer current = training.getStructureVersion();
+        if (current == null || current == v) {
+            return indexes.computeIfAbsent(key(training.getId(), v), k -> SessionIndex.compile(training.getLevels()));
+        }
+        return index(training.getId(), v, training);
+    }
+
+    private SessionIndex index(String trainingId, int version, Training fallback) {
+        SessionIndex cached = indexes.get(key(trainingId, version));
+        if (cached != null) return cached;
+
+        Query query = Query.query(Criteria.where("trainingId").is(trainingId).and("version").is(version));
+        query.fields().include("levels");
+        TrainingStructure structure = mongoTemplate.findOne(query, TrainingStructure.class);
+        if (structure == null) {
+            log.warn("Version de structure introuvable: trainingId={}, version={}, structure courante utilisée",
+                    trainingId, version);
+            return SessionIndex.compile(fallback.getLevels());
+        }
+        return indexes.computeIfAbsent(key(trainingId, version), k -> SessionIndex.compile(structure.getLevels()));
+    }
+
+    /** Drop the compiled versions of a deleted training. */
+    public void evict(String trainingId) {
+        indexes.keySet().removeIf(k -> k.startsWith(trainingId + ":"));
+    }
+
+    /**
+     * Publish version 1 of trainings created before versioning.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            Query query = Query.query(Criteria.where("structureVersion").exists(false));
+            query.fields().include("levels");
+            int count = 0;
+            for (Training training : mongoTemplate.find(query, Training.class)) {
+                publish(training);
+                mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("_id").is(training.getId()).and("structureVersion").exists(false)),
+                        new Update().set("structureVersion", training.getStructureVersion())
+                                .set("structureHash", training.getStructureHash()),
+                        Training.class);
+                referenceCache.evictTraining(training.getId());
+                count++;
+            }
+            if (count > 0) {
+                log.info("Structures de formation versionnées: {} formation(s)", count);
+            }
+        } catch (Exception e) {
+            log.warn("Versionnement initial des structures de formation impossible: {}", e.getMessage());
+        }
+    }
+
+    private TrainingStructure latest(String trainingId) {
+        Query query = Query.query(Criteria.where("trainingId").is(trainingId))
+                .with(Sort.by(Sort.Direction.DESC, "version"));
+        query.fields().include("version", "contentHash");
+        return mongoTemplate.findOne(query, TrainingStructure.class);
+    }
+
+    private static String key(String trainingId, int version) {
+        return trainingId + ":" + version;
+    }
+
+    /**
+     * SHA-256 over a canonical rendering of the levels (order-sensitive, every field
+     * that affects attendance or progress).
+     */
+    static String contentHash(List<Level> levels) {
+        StringBuilder canonical = new StringBuilder();
+        if (levels != null) {
+            for (Level level : levels) {
+                canonical.append('L').append(level.getLevelNumber()).append('\u001f')
+                        .append(level.getTitle()).append('\u001e');
+                if (level.getSessions() == null) continue;
+                for (Session s : level.getSessions()) {
+                    canonical.append('S').append(s.getSessionId()).append('\u001f')
+                            .append(s.getSessionNumber()).append('\u001f')
+                            .append(s.getTitle()).append('\u001f')
+                            .append(s.getPlannedAt()).append('\u001e');
+                }
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package tn.astba.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tn.astba.domain.Role;
+import tn.astba.domain.Student;
+import tn.astba.domain.User;
+import tn.astba.domain.UserStatus;
+import tn.astba.dto.TypeaheadSuggestion;
+import tn.astba.search.RadixTrie;
+import tn.astba.search.SearchTokenizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * In-memory typeahead over student names and active trainer names.
+ * <p>
+ * Every name token (see {@link SearchTokenizer}) is a key of a {@link RadixTrie};
+ * a lookup walks the first query word's prefix and checks the other words against
+ * the entry's tokens, without touching Mongo. The services push creates, updates and
+ * deletes as they happen; a periodic full rebuild picks up writes made on other nodes.
+ * Writes pushed while a rebuild is reading Mongo are replayed onto the rebuilt index
+ * before it is swapped in, so they are not lost.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TypeaheadService {
+
+    public static final int MAX_LIMIT = 50;
+
+    private final MongoTemplate mongoTemplate;
+
+    private final NameIndex students = new NameIndex();
+    private final NameIndex trainers = new NameIndex();
+
+    public List<TypeaheadSuggestion> suggestStudents(String query, int limit) {
+        return students.suggest(query, limit);
+    }
+
+    public List<TypeaheadSuggestion> suggestTrainers(String query, int limit) {
+        return trainers.suggest(query, limit);
+    }
+
+    public void onStudentSaved(Student student) {
+        students.put(student.getId(), student.getFirstName(), student.getLastName());
+    }
+
+    public void onStudentDeleted(String studentId) {
+        students.remove(studentId);
+    }
+
+    /**
+     * Add, rename or drop a user depending on whether it is currently an active trainer.
+     */
+    public void onUserSaved(User user) {
+        if (isActiveTrainer(user)) {
+            trainers.put(user.getId(), user.getFirstName(), user.getLastName());
+        } else {
+            trainers.remove(user.getId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${astba.typeahead.rebuild-interval-ms:300000}",
+               fixedDelayString = "${astba.typeahead.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        students.beginRebuild();
+        trainers.beginRebuild();
+        try {
+            Query studentQuery = new Query();
+            studentQuery.fields().include("firstName", "lastName");
+            NameIndex.Builder studentBuilder = new NameIndex.Builder();
+            try (Stream<Student> all = mongoTemplate.stream(studentQuery, Student.class)) {
+                all.forEach(s -> studentBuilder.add(s.getId(), s.getFirstName(), s.getLastName()));
+            }
+
+            Query trainerQuery = Query.query(where("roles").is(Role.TRAINER).and("status").is(UserStatus.ACTIVE));
+            trainerQuery.fields().include("firstName", "lastName");
+            NameIndex.Builder trainerBuilder = new NameIndex.Builder();
+            try (Stream<User> all = mongoTemplate.stream(trainerQuery, User.class)) {
+                all.forEach(u -> trainerBuilder.add(u.getId(), u.getFirstName(), u.getLastName()));
+            }
+
+            students.replace(studentBuilder);
+            trainers.replace(trainerBuilder);
+            log.debug("Index d'autocomplétion reconstruit: {} élèves, {} formateurs",
+                    studentBuilder.size(), trainerBuilder.size());
+        } catch (Exception e) {
+            students.abortRebuild();
+            trainers.abortRebuild();
+            log.warn("Reconstruction de l'index d'autocomplétion impossible: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isActiveTrainer(User user) {
+        return user.getStatus() == UserStatus.ACTIVE
+                && user.getRoles() != null && user.getRoles().contains(Role.TRAINER);
+    }
+
+    private record Entry(String id, String label, List<String> tokens) {
+
+        static Entry of(String id, String firstName, String lastName) {
+            String label = ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+            return new Entry(id, label, SearchTokenizer.tokens(firstName, lastName));
+        }
+
+        boolean matchesAll(List<String> words, int from) {
+            for (int w = from; w < words.size(); w++) {
+                if (!matches(words.get(w))) return false;
+            }
+            return true;
+        }
+
+        private boolean matches(String word) {
+            for (String variant : SearchTokenizer.variants(word)) {
+                for (String token : tokens) {
+                    if (token.startsWith(variant)) return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Trie plus id -> entry map, guarded by a read/write lock (reads vastly dominate).
+     */
+    private static final class NameIndex {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private RadixTrie<String> trie = new RadixTrie<>();
+        private Map<String, Entry> entries = new HashMap<>();
+
+        /** id -> latest entry (null when removed) pushed since the rebuild began; null outside a rebuild */
+        private Map<String, Entry> writtenDuringRebuild;
+
+        List<TypeaheadSuggestion> suggest(String query, int limit) {
+            List<String> words = SearchTokenizer.words(query);
+            int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+            if (words.isEmpty()) return List.of();
+
+            lock.readLock().lock();
+            try {
+                List<String> ids = new ArrayList<>(k);
+                for (String variant : SearchTokenizer.variants(words.get(0))) {
+                    for (String id : trie.prefix(variant, k, id -> entries.get(id).matchesAll(words, 1))) {
+                        if (!ids.contains(id)) ids.add(id);
+                    }
+                    if (ids.size() >= k) break;
+                }
+                List<TypeaheadSuggestion> out = new ArrayList<>(Math.min(k, ids.size()));
+                for (String id : ids.subList(0, Math.min(k, ids.size()))) {
+                    out.add(TypeaheadSuggestion.builder().id(id).label(entries.get(id).label()).build());
+                }
+                return out;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void put(String id, String firstName, String lastName) {
+            if (id == null) return;
+            Entry entry = Entry.of(id, firstName, lastName);
+            lock.writeLock().lock();
+            try {
+                unindex(entries.put(id, entry));
+                for (String token : entry.tokens()) trie.put(token, id);
+                if (writtenDuringRebuild != null) writtenDuringRebuild.put(id, entry);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(String id) {
+            lock.writeLock().lock();
+            try {
+                unindex(entries.remove(id));
+                if (writtenDuringRebuild != null) writtenDuringRebuild.put(id, null);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** Start recording pushed writes, until {@link #replace} or {@link #abortRebuild}. */
+        void beginRebuild() {
+            lock.writeLock().lock();
+            try {
+                writtenDuringRebuild = new HashMap<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void abortRebuild() {
+            lock.writeLock().lock();
+            try {
+                writtenDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Swap in the rebuilt index, after replaying the writes pushed while it was read:
+         * they are at least as recent as what the rebuild saw.
+         */
+        void replace(Builder builder) {
+            lock.writeLock().lock();
+            try {
+                if (writtenDuringRebuild != null) {
+                    writtenDuringRebuild.forEach(builder::apply);
+                    writtenDuringRebuild = null;
+                }
+                trie = builder.trie;
+                entries = builder.entries;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void unindex(Entry previous) {
+            unindex(trie, previous);
+        }
+
+        private static void unindex(RadixTrie<String> trie, Entry previous) {
+            if (previous == null) return;
+            for (String token : previous.tokens()) trie.remove(token, previous.id());
+        }
+
+        /** Builds a whole index off-lock, swapped in at once by {@link #replace}. */
+        static final class Builder {
+            private final RadixTrie<String> trie = new RadixTrie<>();
+            private final Map<String, Entry> entries = new HashMap<>();
+
+            void add(String id, String firstName, String lastName) {
+                Entry entry = Entry.of(id, firstName, lastName);
+                entries.put(id, entry);
+                for (String token : entry.tokens()) trie.put(token, id);
+            }
+
+            /** Overwrite with a pushed write; a null entry is a removal. */
+            void apply(String id, Entry entry) {
+                unindex(trie, entry != null ? entries.put(id, entry) : entries.remove(id));
+                if (entry != null) {
+                    for (String token : entry.tokens()) trie.put(token, id);
+                }
+            }
+
+            int size() {
+                return entries.size();
+            }
+        }
+    }
+}
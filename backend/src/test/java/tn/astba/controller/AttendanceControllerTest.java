@@ -11,6 +11,9 @@ import org.springframework.test.web.servlet.MockMvc;
 import tn.astba.dto.AttendanceMarkResponse;
 import tn.astba.dto.SessionAttendanceInfo;
 import tn.astba.security.JwtService;
+import tn.astba.security.AuthRateLimiter;
+import tn.astba.security.TokenRevocationList;
+import tn.astba.security.VerifiedTokenCache;
 import tn.astba.service.AttendanceService;
 
 import java.util.List;
@@ -34,6 +37,15 @@ class AttendanceControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
+    @MockBean
+    private AuthRateLimiter authRateLimiter;
+
     @Test
     @DisplayName("POST /api/attendance/mark with valid body returns 200")
     void testMarkAttendance() throws Exception {
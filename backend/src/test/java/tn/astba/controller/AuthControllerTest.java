@@ -15,6 +15,10 @@ import tn.astba.domain.UserStatus;
 import tn.astba.domain.User;
 import tn.astba.security.CookieHelper;
 import tn.astba.security.JwtService;
+import tn.astba.security.AuthRateLimiter;
+import tn.astba.security.OAuth2CodeStore;
+import tn.astba.security.TokenRevocationList;
+import tn.astba.security.VerifiedTokenCache;
 import tn.astba.service.AuthService;
 import tn.astba.service.AuthService.LoginResult;
 
@@ -43,6 +47,18 @@ class AuthControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
+    @MockBean
+    private AuthRateLimiter authRateLimiter;
+
+    @MockBean
+    private OAuth2CodeStore oAuth2CodeStore;
+
     @Test
     @DisplayName("POST /api/auth/register returns 201")
     void testRegister() throws Exception {
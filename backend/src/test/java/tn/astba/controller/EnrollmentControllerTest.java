@@ -0,0 +1,71 @@
+package tn.astba.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import tn.astba.dto.EnrollmentResponse;
+import tn.astba.security.AuthRateLimiter;
+import tn.astba.security.JwtService;
+import tn.astba.security.TokenRevocationList;
+import tn.astba.security.VerifiedTokenCache;
+import tn.astba.service.EnrollmentFields;
+import tn.astba.service.EnrollmentService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(EnrollmentController.class)
+@WithMockUser(roles = "ADMIN")
+class EnrollmentControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private EnrollmentService enrollmentService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
+    @MockBean
+    private AuthRateLimiter authRateLimiter;
+
+    @Test
+    @DisplayName("GET /api/enrollments/{id}?fields= overrides view=")
+    void testFieldsOverrideView() throws Exception {
+        when(enrollmentService.findById(eq("e1"), any(EnrollmentFields.class)))
+                .thenReturn(EnrollmentResponse.builder().id("e1").build());
+
+        mockMvc.perform(get("/api/enrollments/e1").param("view", "minimal").param("fields", "progress"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("e1"));
+
+        verify(enrollmentService).findById(eq("e1"), argThat(f ->
+                f.has(EnrollmentFields.Part.PROGRESS) && !f.has(EnrollmentFields.Part.STUDENT)));
+    }
+
+    @Test
+    @DisplayName("GET /api/enrollments/{id} with an unknown field returns 400")
+    void testUnknownField() throws Exception {
+        mockMvc.perform(get("/api/enrollments/e1").param("fields", "progress,notes"))
+                .andExpect(status().isBadRequest());
+
+        verify(enrollmentService, never()).findById(any(), any(EnrollmentFields.class));
+    }
+}
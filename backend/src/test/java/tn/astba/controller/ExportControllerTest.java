@@ -0,0 +1,108 @@
+package tn.astba.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tn.astba.security.AuthRateLimiter;
+import tn.astba.security.JwtService;
+import tn.astba.security.TokenRevocationList;
+import tn.astba.security.VerifiedTokenCache;
+import tn.astba.service.ExportFormat;
+import tn.astba.service.ExportService;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ExportController.class)
+@WithMockUser(roles = "ADMIN")
+class ExportControllerTest {
+
+    private static final String BODY = "id,lastName\r\ns1,Ben Salah\r\n";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExportService exportService;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
+    @MockBean
+    private AuthRateLimiter authRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        when(exportService.students(ExportFormat.CSV))
+                .thenReturn(out -> out.write(BODY.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private MvcResult export(String acceptEncoding) throws Exception {
+        var get = get("/api/exports/students");
+        if (acceptEncoding != null) get.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        MvcResult started = mockMvc.perform(get)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertTrue(result.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+        return result;
+    }
+
+    @Test
+    @DisplayName("GET /api/exports/students streams gzip when the client accepts it")
+    void testGzip() throws Exception {
+        MvcResult result = export("br, gzip;q=0.8");
+
+        assertEquals("gzip", result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        byte[] compressed = result.getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(BODY, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/exports/students is not compressed when gzip is refused or absent")
+    void testIdentity() throws Exception {
+        for (String acceptEncoding : new String[]{null, "gzip;q=0", "identity", "*;q=0"}) {
+            MvcResult result = export(acceptEncoding);
+            assertNull(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING), acceptEncoding);
+            assertEquals(BODY, result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("Accept-Encoding negotiation honours q-values and the wildcard")
+    void testAcceptsGzip() {
+        assertTrue(ExportController.acceptsGzip("gzip"));
+        assertTrue(ExportController.acceptsGzip("deflate, GZIP ; q=0.5"));
+        assertTrue(ExportController.acceptsGzip("*"));
+        assertTrue(ExportController.acceptsGzip("x-gzip"));
+        assertFalse(ExportController.acceptsGzip("gzip;q=0"));
+        assertFalse(ExportController.acceptsGzip("gzip;q=0.0, *"));
+        assertFalse(ExportController.acceptsGzip("br, deflate"));
+        assertFalse(ExportController.acceptsGzip("*;q=0"));
+        assertFalse(ExportController.acceptsGzip(null));
+    }
+}
@@ -12,6 +12,10 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 import tn.astba.dto.StudentResponse;
 import tn.astba.security.JwtService;
+import tn.astba.security.AuthRateLimiter;
+import tn.astba.security.TokenRevocationList;
+import tn.astba.security.VerifiedTokenCache;
+import tn.astba.service.StudentImportService;
 import tn.astba.service.StudentService;
 
 import java.time.Instant;
@@ -36,6 +40,18 @@ class StudentControllerTest {
     @MockBean
     private JwtService jwtService;
 
+    @MockBean
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @MockBean
+    private TokenRevocationList tokenRevocationList;
+
+    @MockBean
+    private AuthRateLimiter authRateLimiter;
+
+    @MockBean
+    private StudentImportService studentImportService;
+
     @Test
     @DisplayName("GET /api/students returns paginated list")
     void testFindAll() throws Exception {
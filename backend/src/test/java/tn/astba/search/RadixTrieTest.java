@@ -0,0 +1,46 @@
+package tn.astba.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RadixTrieTest {
+
+    @Test
+    @DisplayName("Prefix query returns values in key order across split edges")
+    void testPrefix() {
+        RadixTrie<String> trie = new RadixTrie<>();
+        trie.put("mohamed", "1");
+        trie.put("mona", "2");
+        trie.put("moez", "3");
+        trie.put("ali", "4");
+
+        assertEquals(List.of("3", "1", "2"), trie.prefix("mo", 10, v -> true));
+        assertEquals(List.of("1"), trie.prefix("moh", 10, v -> true));
+        assertEquals(List.of("3"), trie.prefix("mo", 1, v -> true));
+        assertTrue(trie.prefix("mox", 10, v -> true).isEmpty());
+        assertTrue(trie.prefix("mohamedx", 10, v -> true).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Removal prunes and re-merges edges without losing siblings")
+    void testRemove() {
+        RadixTrie<String> trie = new RadixTrie<>();
+        trie.put("sami", "1");
+        trie.put("samia", "2");
+        trie.put("salma", "3");
+
+        trie.remove("sami", "1");
+        assertEquals(List.of("3", "2"), trie.prefix("sa", 10, v -> true));
+
+        trie.remove("salma", "3");
+        assertEquals(List.of("2"), trie.prefix("s", 10, v -> true));
+        assertEquals(List.of("2"), trie.prefix("samia", 10, v -> true));
+
+        trie.remove("samia", "2");
+        assertTrue(trie.prefix("", 10, v -> true).isEmpty());
+    }
+}
@@ -0,0 +1,43 @@
+package tn.astba.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchTokenizerTest {
+
+    @Test
+    @DisplayName("Latin names are lower-cased and accent-folded, emails split")
+    void testLatinFolding() {
+        List<String> tokens = SearchTokenizer.tokens("Hélène", "Ben Saïd", "h.bensaid@Astba.tn");
+
+        assertTrue(tokens.containsAll(List.of("helene", "ben", "said", "h", "bensaid", "astba", "tn")));
+    }
+
+    @Test
+    @DisplayName("Doubled letters get a collapsed variant")
+    void testCollapsedVariant() {
+        assertEquals(List.of("mohammed", "mohamed"), SearchTokenizer.variants("mohammed"));
+    }
+
+    @Test
+    @DisplayName("Arabic names are normalized and transliterated")
+    void testArabic() {
+        List<String> tokens = SearchTokenizer.tokens("أَحْمَد", "الشّابي");
+
+        assertTrue(tokens.contains("احمد"));
+        assertTrue(tokens.contains("ahmd"));
+        assertTrue(tokens.contains("الشابي"));
+        assertTrue(tokens.contains("alchabi"));
+    }
+
+    @Test
+    @DisplayName("Regex metacharacters in a query are only separators")
+    void testQueryWords() {
+        assertEquals(List.of("a", "b"), SearchTokenizer.words(".*a(b"));
+        assertTrue(SearchTokenizer.words("  ").isEmpty());
+    }
+}
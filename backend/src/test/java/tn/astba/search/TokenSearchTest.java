@@ -0,0 +1,111 @@
+package tn.astba.search;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import tn.astba.domain.Student;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TokenSearchTest {
+
+    private static final Comparator<Student> BY_LAST_NAME = Comparator.comparing(Student::getLastName);
+    private static final PageRequest BY_NAME = PageRequest.of(0, 2, Sort.by("lastName", "firstName"));
+
+    private MongoTemplate mongoTemplate;
+    /** Matches in the requested sort, as the database would return them */
+    private final List<Student> matches = new ArrayList<>();
+    private final List<Query> restQueries = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(Student.class))).thenAnswer(inv -> {
+            Query query = inv.getArgument(0);
+            Document filter = query.getQueryObject();
+            if (filter.containsKey("_id")) {
+                // Page hydration: full documents, in no particular order
+                Collection<?> ids = filter.get("_id", Document.class).get("$in", Collection.class);
+                List<Student> found = new ArrayList<>(matches.stream().filter(s -> ids.contains(s.getId())).toList());
+                Collections.reverse(found);
+                return found;
+            }
+            if (!query.getFieldsObject().isEmpty()) {
+                assertFalse(query.getFieldsObject().containsKey("notes"));
+                return new ArrayList<>(matches.stream().limit(query.getLimit())
+                        .map(s -> Student.builder().id(s.getId()).firstName(s.getFirstName()).lastName(s.getLastName())
+                                .searchTokens(s.getSearchTokens()).build())
+                        .toList());
+            }
+            restQueries.add(query);
+            return matches.stream().skip(query.getSkip()).limit(query.getLimit()).toList();
+        });
+        when(mongoTemplate.count(any(Query.class), eq(Student.class))).thenAnswer(inv -> (long) matches.size());
+    }
+
+    private void match(String id, String firstName, String lastName) {
+        matches.add(Student.builder().id(id).firstName(firstName).lastName(lastName).notes("notes " + id)
+                .searchTokens(SearchTokenizer.tokens(firstName, lastName)).build());
+    }
+
+    private Page<Student> search(String query, PageRequest pageable) {
+        return TokenSearch.search(mongoTemplate, Student.class, query, pageable, List.of("firstName", "lastName"),
+                s -> SearchTokenizer.tokens(s.getFirstName(), s.getLastName()), BY_LAST_NAME);
+    }
+
+    @Test
+    @DisplayName("Exact matches rank first and only the page is loaded in full")
+    void testRanking() {
+        match("s1", "Aminata", "Diallo");
+        match("s2", "Amine", "Gharbi");
+        match("s3", "Amine", "Jlassi");
+
+        Page<Student> page = search("amine", BY_NAME);
+
+        assertEquals(List.of("s2", "s3"), page.getContent().stream().map(Student::getId).toList());
+        assertEquals("notes s2", page.getContent().get(0).getNotes());
+        assertEquals(3, page.getTotalElements());
+        verify(mongoTemplate, never()).count(any(Query.class), eq(Student.class));
+    }
+
+    @Test
+    @DisplayName("Past the ranked window, the total is counted and the remaining matches stay reachable")
+    void testPastWindow() {
+        IntStream.range(0, TokenSearch.MAX_CANDIDATES + 3)
+                .forEach(i -> match("s" + i, "Amine", String.format("Nom%05d", i)));
+        int lastPage = TokenSearch.MAX_CANDIDATES / 2;
+
+        // Offset 999: the last ranked match, then the first two past the window
+        Page<Student> straddling = search("amine", PageRequest.of(TokenSearch.MAX_CANDIDATES / 3, 3, BY_NAME.getSort()));
+        Page<Student> past = search("amine", PageRequest.of(lastPage, 2, BY_NAME.getSort()));
+
+        assertEquals(TokenSearch.MAX_CANDIDATES + 3, past.getTotalElements());
+        assertEquals(List.of("s999", "s1000", "s1001"), straddling.getContent().stream().map(Student::getId).toList());
+        assertEquals(List.of("s1000", "s1001"), past.getContent().stream().map(Student::getId).toList());
+        assertEquals(TokenSearch.MAX_CANDIDATES, restQueries.get(0).getSkip());
+        assertEquals(new Document("lastName", 1).append("firstName", 1), restQueries.get(0).getSortObject());
+    }
+
+    @Test
+    @DisplayName("A blank query returns an empty page without touching Mongo")
+    void testBlank() {
+        assertTrue(search("  ", BY_NAME).isEmpty());
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,102 @@
+package tn.astba.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import tn.astba.exception.TooManyRequestsException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private AuthRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new AuthRateLimiter(true, 1000, clock::get);
+        limiter.addIpLimit(AuthRateLimiter.LOGIN, 3);
+        limiter.addEmailLimit(AuthRateLimiter.LOGIN, 2);
+    }
+
+    @Test
+    @DisplayName("Burst up to the limit is allowed, then Retry-After is returned")
+    void testBurstThenThrottle() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquireIp(AuthRateLimiter.LOGIN, "1.2.3.4"));
+        }
+        assertEquals(20, limiter.tryAcquireIp(AuthRateLimiter.LOGIN, "1.2.3.4"));
+        // Other clients have their own bucket
+        assertEquals(0, limiter.tryAcquireIp(AuthRateLimiter.LOGIN, "5.6.7.8"));
+    }
+
+    @Test
+    @DisplayName("Permits refill over time")
+    void testRefill() {
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquireIp(AuthRateLimiter.LOGIN, "1.2.3.4");
+        }
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        assertEquals(0, limiter.tryAcquireIp(AuthRateLimiter.LOGIN, "1.2.3.4"));
+        assertTrue(limiter.tryAcquireIp(AuthRateLimiter.LOGIN, "1.2.3.4") > 0);
+    }
+
+    @Test
+    @DisplayName("Email bucket throws 429 once exhausted")
+    void testEmailLimit() {
+        limiter.acquireEmail(AuthRateLimiter.LOGIN, "a@astba.tn");
+        limiter.acquireEmail(AuthRateLimiter.LOGIN, "a@astba.tn");
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> limiter.acquireEmail(AuthRateLimiter.LOGIN, "a@astba.tn"));
+        assertEquals(30, ex.getRetryAfterSeconds());
+    }
+
+    @Test
+    @DisplayName("Refilled buckets are evicted, unlimited paths are ignored")
+    void testEvictionAndUnlimitedPath() {
+        limiter.tryAcquireIp(AuthRateLimiter.LOGIN, "1.2.3.4");
+        assertEquals(1, limiter.trackedKeys());
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        limiter.evictIdle();
+        assertEquals(0, limiter.trackedKeys());
+
+        assertFalse(limiter.isLimited("/api/students"));
+        assertEquals(0, limiter.tryAcquireIp("/api/students", "1.2.3.4"));
+    }
+
+    /**
+     * Run with {@code mvn test -Dtest=AuthRateLimiterTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("Benchmark: a permit check costs well under a microsecond")
+    void benchmarkAcquire() {
+        AuthRateLimiter real = new AuthRateLimiter(true, 100_000, System::nanoTime);
+        real.addIpLimit(AuthRateLimiter.LOGIN, 1_000_000);
+        String[] ips = new String[1024];
+        for (int i = 0; i < ips.length; i++) {
+            ips[i] = "10.0." + (i >> 8) + "." + (i & 255);
+        }
+
+        int warmup = 2_000_000;
+        int iterations = 10_000_000;
+        long sink = 0;
+        for (int i = 0; i < warmup; i++) {
+            sink += real.tryAcquireIp(AuthRateLimiter.LOGIN, ips[i & 1023]);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += real.tryAcquireIp(AuthRateLimiter.LOGIN, ips[i & 1023]);
+        }
+        double nsPerOp = (double) (System.nanoTime() - start) / iterations;
+
+        // The sink goes into the message so the measured calls cannot be optimized away
+        assertTrue(nsPerOp < 1000, "Expected < 1 µs per request, got " + nsPerOp + " ns (sink=" + sink + ")");
+    }
+}
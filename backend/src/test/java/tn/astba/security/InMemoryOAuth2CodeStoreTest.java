@@ -0,0 +1,92 @@
+package tn.astba.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryOAuth2CodeStoreTest {
+
+    private final AtomicLong clock = new AtomicLong(0);
+    private InMemoryOAuth2CodeStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryOAuth2CodeStore(clock::get);
+    }
+
+    private void atSecond(long second) {
+        clock.set(second * 1000);
+    }
+
+    @Test
+    @DisplayName("A code is redeemed once for its tokens")
+    void testSingleUse() {
+        String code = store.generateCode("access", "refresh");
+
+        assertEquals(new OAuth2CodeStore.TokenPair("access", "refresh"), store.exchange(code));
+        assertNull(store.exchange(code));
+        assertNull(store.exchange("inconnu"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    @DisplayName("A code is valid until its expiry tick, excluded")
+    void testExpiry() {
+        String first = store.generateCode("a1", "r1");
+        String second = store.generateCode("a2", "r2");
+
+        clock.set(OAuth2CodeStore.CODE_TTL_SECONDS * 1000 - 1);
+        assertNotNull(store.exchange(first));
+        atSecond(OAuth2CodeStore.CODE_TTL_SECONDS);
+        assertNull(store.exchange(second));
+    }
+
+    @Test
+    @DisplayName("The wheel purges a code on its expiry tick, never before")
+    void testPurgeBoundary() {
+        store.generateCode("a1", "r1");
+
+        atSecond(OAuth2CodeStore.CODE_TTL_SECONDS - 1);
+        store.generateCode("a2", "r2");
+        assertEquals(2, store.size());
+
+        atSecond(OAuth2CodeStore.CODE_TTL_SECONDS);
+        store.generateCode("a3", "r3");
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    @DisplayName("Expiry ticks past the end of the wheel wrap to the first slots")
+    void testWrapAround() {
+        atSecond(30);
+        String code = store.generateCode("a1", "r1"); // expires at tick 90, slot 26
+
+        atSecond(89);
+        store.generateCode("a2", "r2");
+        assertEquals(2, store.size());
+
+        atSecond(90);
+        store.generateCode("a3", "r3");
+        assertEquals(2, store.size());
+        assertNull(store.exchange(code));
+    }
+
+    @Test
+    @DisplayName("After a pause longer than the wheel, every slot is visited once")
+    void testLongPause() {
+        store.generateCode("a1", "r1");
+        atSecond(5);
+        String kept = store.generateCode("a2", "r2");
+
+        atSecond(5 + 3 * 64);
+        String fresh = store.generateCode("a3", "r3");
+
+        assertEquals(1, store.size());
+        assertNull(store.exchange(kept));
+        assertNotNull(store.exchange(fresh));
+    }
+}
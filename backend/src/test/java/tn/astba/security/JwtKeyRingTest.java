@@ -0,0 +1,48 @@
+package tn.astba.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tn.astba.domain.JwtSigningKey;
+import tn.astba.repository.JwtSigningKeyRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JwtKeyRingTest {
+
+    private JwtSigningKeyRepository repository;
+    private JwtKeyRing ring;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(JwtSigningKeyRepository.class);
+        when(repository.findByExpiresAtAfter(any(Instant.class))).thenReturn(List.<JwtSigningKey>of());
+        ring = new JwtKeyRing(repository, 24, 15);
+        ring.init();
+    }
+
+    @Test
+    @DisplayName("JWKS requests are served from memory, Mongo is read at most once per interval")
+    void testJwksThrottled() {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(1, ring.jwks().size());
+        }
+        ring.publicKey("inconnu");
+
+        verify(repository, times(1)).findByExpiresAtAfter(any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Keys of the ring verify without any Mongo lookup")
+    void testLocalKey() {
+        String kid = ring.signingKey().kid();
+
+        assertNotNull(ring.publicKey(kid));
+        verify(repository, never()).findByExpiresAtAfter(any(Instant.class));
+    }
+}
@@ -0,0 +1,88 @@
+package tn.astba.security;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import tn.astba.domain.OAuth2Code;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MongoOAuth2CodeStoreTest {
+
+    private MongoTemplate mongoTemplate;
+    private MongoOAuth2CodeStore store;
+    private final Map<String, OAuth2Code> collection = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.insert(any(OAuth2Code.class))).thenAnswer(inv -> {
+            OAuth2Code doc = inv.getArgument(0);
+            collection.put(doc.getCodeHash(), doc);
+            return doc;
+        });
+        // Mimics findAndDelete on { _id, expiresAt: { $gt: now } }
+        when(mongoTemplate.findAndRemove(any(Query.class), eq(OAuth2Code.class))).thenAnswer(inv -> {
+            Query query = inv.getArgument(0);
+            OAuth2Code doc = collection.get(query.getQueryObject().getString("_id"));
+            Instant now = (Instant) query.getQueryObject().get("expiresAt", Document.class).get("$gt");
+            if (doc == null || !doc.getExpiresAt().isAfter(now)) {
+                return null;
+            }
+            return collection.remove(doc.getCodeHash());
+        });
+        store = new MongoOAuth2CodeStore(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Only a hash of the code is stored, with the code TTL")
+    void testGenerate() {
+        Instant before = Instant.now();
+        String code = store.generateCode("access", "refresh");
+
+        ArgumentCaptor<OAuth2Code> captor = ArgumentCaptor.forClass(OAuth2Code.class);
+        verify(mongoTemplate).insert(captor.capture());
+        OAuth2Code doc = captor.getValue();
+        assertNotEquals(code, doc.getCodeHash());
+        assertEquals(64, doc.getCodeHash().length());
+        assertFalse(doc.getExpiresAt().isBefore(before.plusSeconds(OAuth2CodeStore.CODE_TTL_SECONDS)));
+    }
+
+    @Test
+    @DisplayName("A code is redeemed once for its tokens")
+    void testSingleUse() {
+        String code = store.generateCode("access", "refresh");
+
+        assertEquals(new OAuth2CodeStore.TokenPair("access", "refresh"), store.exchange(code));
+        assertNull(store.exchange(code));
+        assertNull(store.exchange("inconnu"));
+    }
+
+    @Test
+    @DisplayName("An expired code still waiting for the TTL monitor is refused")
+    void testExpired() {
+        String code = store.generateCode("access", "refresh");
+        collection.values().forEach(doc -> doc.setExpiresAt(Instant.now().minusSeconds(1)));
+
+        assertNull(store.exchange(code));
+    }
+
+    @Test
+    @DisplayName("Blank codes never reach Mongo")
+    void testBlank() {
+        assertNull(store.exchange(null));
+        assertNull(store.exchange(" "));
+        verify(mongoTemplate, never()).findAndRemove(any(Query.class), eq(OAuth2Code.class));
+    }
+}
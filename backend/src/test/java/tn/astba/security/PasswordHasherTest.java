@@ -0,0 +1,84 @@
+package tn.astba.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tn.astba.exception.GlobalExceptionHandler;
+import tn.astba.exception.TooManyRequestsException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PasswordHasherTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHasher hasher;
+
+    /** One hashing thread and a queue of one, with an encoder blocked until {@link #release} */
+    private PasswordHasher blockedHasher(long timeoutMillis) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(any())).thenAnswer(inv -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+        hasher = new PasswordHasher(encoder, 1, 1, timeoutMillis);
+        CompletableFuture.runAsync(() -> hasher.encode("busy"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return hasher;
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (hasher != null) hasher.shutdown();
+    }
+
+    @Test
+    @DisplayName("A saturated pool answers 429 with Retry-After instead of queueing")
+    void testSaturated() throws Exception {
+        PasswordHasher hasher = blockedHasher(5000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        hasher.bindTo(registry);
+        CompletableFuture.runAsync(() -> hasher.encode("queued"));
+        // Wait for the second task to take the only queue slot
+        long deadline = System.currentTimeMillis() + 5000;
+        while (registry.get("astba.password.hashing.queued").gauge().value() < 1) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class, () -> hasher.encode("rejected"));
+        assertEquals(1, registry.get("astba.password.hashing.rejected").functionCounter().count());
+
+        ResponseEntity<Map<String, Object>> response = new GlobalExceptionHandler()
+                .handleTooManyRequests(e, new MockHttpServletRequest("POST", "/api/auth/login"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    @DisplayName("A request thread does not wait for a stuck hash longer than the timeout")
+    void testTimeout() throws Exception {
+        PasswordHasher hasher = blockedHasher(50);
+
+        long start = System.nanoTime();
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class, () -> hasher.encode("waiting"));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertEquals(1, e.getRetryAfterSeconds());
+    }
+}
@@ -0,0 +1,92 @@
+package tn.astba.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import tn.astba.domain.TokenRevocation;
+import tn.astba.repository.TokenRevocationRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationListTest {
+
+    private static final long ACCESS_TTL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    private TokenRevocationRepository repository;
+    private TokenRevocationList revocations;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TokenRevocationRepository.class);
+        JwtService jwtService = mock(JwtService.class);
+        when(jwtService.getAccessTtlMillis()).thenReturn(ACCESS_TTL_MILLIS);
+        revocations = new TokenRevocationList(repository, jwtService);
+    }
+
+    private static TokenRevocation revocation(String userId, long notBeforeMillis) {
+        return TokenRevocation.builder().userId(userId).notBefore(Instant.ofEpochMilli(notBeforeMillis)).build();
+    }
+
+    @Test
+    @DisplayName("The cut-off is truncated to the second: tokens issued in that second stay valid")
+    void testCutoffBoundary() {
+        revocations.revokeUser("u1");
+
+        ArgumentCaptor<TokenRevocation> saved = ArgumentCaptor.forClass(TokenRevocation.class);
+        verify(repository).save(saved.capture());
+        long cutoff = saved.getValue().getNotBefore().toEpochMilli();
+        assertEquals(0, cutoff % 1000);
+        assertTrue(revocations.isRevoked("u1", cutoff - 1));
+        assertFalse(revocations.isRevoked("u1", cutoff));
+        assertFalse(revocations.isRevoked("u1", cutoff + 999));
+        assertFalse(revocations.isRevoked("u2", cutoff - 1));
+    }
+
+    @Test
+    @DisplayName("Sync picks up cut-offs written by other nodes and keeps the latest one")
+    void testSync() {
+        long now = System.currentTimeMillis() / 1000 * 1000;
+        when(repository.findByNotBeforeAfter(any(Instant.class))).thenReturn(List.of(
+                revocation("u2", now - 5000), revocation("u2", now)));
+
+        revocations.sync();
+
+        assertTrue(revocations.isRevoked("u2", now - 1));
+        assertFalse(revocations.isRevoked("u2", now));
+        ArgumentCaptor<Instant> horizon = ArgumentCaptor.forClass(Instant.class);
+        verify(repository).findByNotBeforeAfter(horizon.capture());
+        assertTrue(horizon.getValue().toEpochMilli() <= System.currentTimeMillis() - ACCESS_TTL_MILLIS);
+    }
+
+    @Test
+    @DisplayName("Cut-offs older than the access token TTL are dropped")
+    void testExpiry() {
+        long now = System.currentTimeMillis();
+        when(repository.findByNotBeforeAfter(any(Instant.class))).thenReturn(List.of(
+                revocation("old", now - ACCESS_TTL_MILLIS - 60_000), revocation("recent", now - 60_000)));
+
+        revocations.sync();
+
+        assertEquals(1, revocations.size());
+        assertFalse(revocations.isRevoked("old", 0));
+        assertTrue(revocations.isRevoked("recent", now - 120_000));
+    }
+
+    @Test
+    @DisplayName("A failed sync keeps the cut-offs already known")
+    void testSyncFailure() {
+        revocations.revokeUser("u1");
+        when(repository.findByNotBeforeAfter(any(Instant.class))).thenThrow(new IllegalStateException("mongo"));
+
+        revocations.sync();
+
+        assertTrue(revocations.isRevoked("u1", 0));
+    }
+}
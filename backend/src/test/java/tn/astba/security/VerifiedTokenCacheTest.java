@@ -0,0 +1,74 @@
+package tn.astba.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tn.astba.domain.Role;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VerifiedTokenCache(4, 1);
+    }
+
+    private static VerifiedToken token(String userId, long exp) {
+        return VerifiedToken.of(userId, Set.of(Role.TRAINER), 0L, exp);
+    }
+
+    @Test
+    @DisplayName("Cached token is returned and counted as a hit")
+    void testHit() {
+        cache.put("tok-1", token("u1", 10_000));
+
+        VerifiedToken cached = cache.get("tok-1", 1_000);
+        assertNotNull(cached);
+        assertEquals("u1", cached.userId());
+        assertEquals(1, cache.hitCount());
+        assertNull(cache.get("tok-2", 1_000));
+        assertEquals(1, cache.missCount());
+        assertEquals(0.5, cache.hitRatio());
+    }
+
+    @Test
+    @DisplayName("Entry is dropped once the token exp is reached")
+    void testExpiry() {
+        cache.put("tok-1", token("u1", 10_000));
+
+        assertNull(cache.get("tok-1", 10_000));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Least recently used entry is evicted when full")
+    void testLruEviction() {
+        cache.put("a", token("u1", 10_000));
+        cache.put("b", token("u1", 10_000));
+        cache.put("c", token("u1", 10_000));
+        cache.put("d", token("u1", 10_000));
+        cache.get("a", 0); // touch "a" so "b" becomes eldest
+        cache.put("e", token("u1", 10_000));
+
+        assertEquals(4, cache.size());
+        assertNotNull(cache.get("a", 0));
+        assertNull(cache.get("b", 0));
+    }
+
+    @Test
+    @DisplayName("invalidateUser removes only that user's tokens")
+    void testInvalidateUser() {
+        cache.put("a", token("u1", 10_000));
+        cache.put("b", token("u2", 10_000));
+
+        cache.invalidateUser("u1");
+
+        assertNull(cache.get("a", 0));
+        assertNotNull(cache.get("b", 0));
+    }
+}
@@ -0,0 +1,106 @@
+package tn.astba.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import tn.astba.domain.*;
+import tn.astba.dto.AttendanceMarkRequest;
+import tn.astba.dto.AttendanceMarkResponse;
+import tn.astba.dto.AttendanceRecord;
+import tn.astba.exception.ResourceNotFoundException;
+import tn.astba.repository.EnrollmentRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AttendanceServiceTest {
+
+    private EnrollmentRepository enrollmentRepository;
+    private AttendanceService service;
+
+    /** Enrolled against version 1 */
+    private Enrollment pinnedV1;
+    /** Enrolled against version 2, where "s-old" was replaced by "s-new" */
+    private Enrollment pinnedV2;
+
+    @BeforeEach
+    void setUp() {
+        List<Level> v1 = TrainingService.generateDefaultLevels();
+        v1.get(0).getSessions().get(0).setSessionId("s-old");
+        List<Level> v2 = TrainingService.generateDefaultLevels();
+        v2.get(0).getSessions().get(0).setSessionId("s-new");
+
+        Training training = Training.builder()
+                .id("training-1")
+                .title("Robotique")
+                .levels(v2)
+                .structureVersion(2)
+                .build();
+
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findOne(any(Query.class), eq(TrainingStructure.class)))
+                .thenReturn(TrainingStructure.builder().trainingId("training-1").version(1).levels(v1).build());
+        TrainingStructureService structureService = new TrainingStructureService(mongoTemplate, mock(ReferenceCache.class));
+
+        TrainingService trainingService = mock(TrainingService.class);
+        when(trainingService.getTrainingOrThrow("training-1")).thenReturn(training);
+
+        pinnedV1 = Enrollment.builder().id("e1").studentId("st1").trainingId("training-1")
+                .attendance(new HashMap<>()).build();
+        pinnedV2 = Enrollment.builder().id("e2").studentId("st2").trainingId("training-1")
+                .attendance(new HashMap<>()).structureVersion(2).build();
+        enrollmentRepository = mock(EnrollmentRepository.class);
+        when(enrollmentRepository.findByStudentIdAndTrainingId("st1", "training-1")).thenReturn(Optional.of(pinnedV1));
+        when(enrollmentRepository.findByStudentIdAndTrainingId("st2", "training-1")).thenReturn(Optional.of(pinnedV2));
+
+        service = new AttendanceService(enrollmentRepository, trainingService, mock(StudentService.class), structureService);
+    }
+
+    private static AttendanceMarkRequest request(String sessionId) {
+        return AttendanceMarkRequest.builder()
+                .trainingId("training-1")
+                .sessionId(sessionId)
+                .records(List.of(
+                        AttendanceRecord.builder().studentId("st1").status(AttendanceStatus.PRESENT).build(),
+                        AttendanceRecord.builder().studentId("st2").status(AttendanceStatus.PRESENT).build()))
+                .build();
+    }
+
+    @Test
+    @DisplayName("A session removed in a newer version can still be marked for enrollments pinned to the older one")
+    void testRemovedSessionOnPinnedVersion() {
+        AttendanceMarkResponse response = service.markAttendance(request("s-old"));
+
+        assertEquals(1, response.getUpdatedCount());
+        assertEquals(List.of("st2"), response.getStructureMismatchStudentIds());
+        assertTrue(pinnedV1.getAttendance().containsKey("s-old"));
+        assertEquals(1, pinnedV1.getProgressSnapshot().getAttendedCount());
+        verify(enrollmentRepository, never()).save(pinnedV2);
+    }
+
+    @Test
+    @DisplayName("A session added in a newer version is not counted for enrollments pinned to the older one")
+    void testNewSessionOnOlderVersion() {
+        AttendanceMarkResponse response = service.markAttendance(request("s-new"));
+
+        assertEquals(1, response.getUpdatedCount());
+        assertEquals(1, response.getStructureMismatchCount());
+        assertEquals(List.of("st1"), response.getStructureMismatchStudentIds());
+        assertFalse(pinnedV1.getAttendance().containsKey("s-new"));
+    }
+
+    @Test
+    @DisplayName("A session unknown to every version is rejected")
+    void testUnknownSession() {
+        assertThrows(ResourceNotFoundException.class, () -> service.markAttendance(request("nope")));
+        verify(enrollmentRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,62 @@
+package tn.astba.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    private static CsvReader reader(String content) {
+        return new CsvReader(new StringReader(content));
+    }
+
+    @Test
+    @DisplayName("Quoted fields keep separators, escaped quotes and line breaks")
+    void testQuotedFields() throws IOException {
+        CsvReader csv = reader("nom,notes\n\"Ben Salah, Amine\",\"dit \"\"bonjour\"\"\nà tous\"\nTrabelsi,ok\n");
+
+        assertEquals(List.of("nom", "notes"), csv.readHeader());
+        assertEquals(List.of("Ben Salah, Amine", "dit \"bonjour\"\nà tous"), csv.next());
+        assertEquals(2, csv.recordLine());
+        assertEquals(List.of("Trabelsi", "ok"), csv.next());
+        assertEquals(4, csv.recordLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    @DisplayName("CRLF line endings, BOM and semicolon separator")
+    void testCrlfBomSemicolon() throws IOException {
+        CsvReader csv = reader("﻿prénom;nom\r\nAmine;Ben Salah\r\n\r\nSarra;\"Trabelsi\"\r\n");
+
+        assertEquals(List.of("prénom", "nom"), csv.readHeader());
+        assertEquals(List.of("Amine", "Ben Salah"), csv.next());
+        assertEquals(List.of("Sarra", "Trabelsi"), csv.next());
+        assertEquals(4, csv.recordLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    @DisplayName("Last record without trailing newline and empty fields")
+    void testNoTrailingNewline() throws IOException {
+        CsvReader csv = reader("a,b,c\n1,,3");
+
+        csv.readHeader();
+        assertEquals(List.of("1", "", "3"), csv.next());
+        assertNull(csv.next());
+    }
+
+    @Test
+    @DisplayName("Unterminated quote is reported with its starting line")
+    void testUnterminatedQuote() throws IOException {
+        CsvReader csv = reader("a,b\n1,\"open\n");
+
+        csv.readHeader();
+        IOException e = assertThrows(IOException.class, csv::next);
+        assertTrue(e.getMessage().contains("ligne 2"));
+    }
+}
@@ -0,0 +1,226 @@
+package tn.astba.service;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import tn.astba.domain.Enrollment;
+import tn.astba.domain.Group;
+import tn.astba.domain.ProgressSnapshot;
+import tn.astba.domain.Student;
+import tn.astba.domain.Training;
+import tn.astba.dto.EnrollmentReassignResponse;
+import tn.astba.dto.EnrollmentResponse;
+import tn.astba.dto.StudentResponse;
+import tn.astba.dto.TrainingResponse;
+import tn.astba.exception.BadRequestException;
+import tn.astba.exception.ConflictException;
+import tn.astba.exception.ResourceNotFoundException;
+import tn.astba.repository.EnrollmentRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EnrollmentServiceTest {
+
+    private EnrollmentRepository enrollmentRepository;
+    private StudentService studentService;
+    private TrainingService trainingService;
+    private GroupService groupService;
+    private MongoTemplate mongoTemplate;
+    /** groupId of each enrollment as stored in Mongo */
+    private final Map<String, String> storedGroupIds = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository = mock(EnrollmentRepository.class);
+        studentService = mock(StudentService.class);
+        trainingService = mock(TrainingService.class);
+        groupService = mock(GroupService.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        when(groupService.getGroupOrThrow("g2"))
+                .thenReturn(Group.builder().id("g2").trainingId("t1").studentIds(new ArrayList<>(List.of("s9"))).build());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Group.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Group.class)))
+                .thenReturn(Group.builder().id("g2").trainingId("t1").studentIds(List.of("s9", "s1", "s2")).build());
+        // Applies the guarded $set the way Mongo would: only if the stored groupId is accepted by the guard
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Enrollment.class))).thenAnswer(inv -> {
+            Document query = inv.getArgument(0, Query.class).getQueryObject();
+            String id = query.getString("_id");
+            Document guard = query.getList("$and", Document.class).get(0).get("groupId", Document.class);
+            if (!guard.get("$in", Collection.class).contains(storedGroupIds.get(id))) {
+                return UpdateResult.acknowledged(0, 0L, null);
+            }
+            storedGroupIds.put(id, inv.getArgument(1, Update.class).getUpdateObject()
+                    .get("$set", Document.class).getString("groupId"));
+            return UpdateResult.acknowledged(1, 1L, null);
+        });
+    }
+
+    private EnrollmentService service(MongoTransactionRunner runner) {
+        return new EnrollmentService(enrollmentRepository, studentService, trainingService, groupService, mongoTemplate, runner, mock(TrainingStructureService.class), mock(ReferenceCache.class));
+    }
+
+    private Enrollment enrollment(String id, String studentId, String groupId) {
+        storedGroupIds.put(id, groupId);
+        return Enrollment.builder().id(id).studentId(studentId).trainingId("t1").groupId(groupId).build();
+    }
+
+    /** Stubs a read of enrollments e1/e2 (students s1/s2, training t1) and returns the captured query */
+    private ArgumentCaptor<Query> readEnrollments() {
+        Enrollment e1 = Enrollment.builder().id("e1").studentId("s1").trainingId("t1")
+                .attendance(new HashMap<>()).progressSnapshot(new ProgressSnapshot()).build();
+        Enrollment e2 = Enrollment.builder().id("e2").studentId("s2").trainingId("t1")
+                .attendance(new HashMap<>()).progressSnapshot(new ProgressSnapshot()).build();
+        when(mongoTemplate.find(any(Query.class), eq(Enrollment.class))).thenReturn(List.of(e1, e2));
+        when(mongoTemplate.find(any(Query.class), eq(Student.class))).thenReturn(List.of(
+                Student.builder().id("s1").build(), Student.builder().id("s2").build()));
+        when(studentService.toResponse(any())).thenAnswer(inv -> StudentResponse.builder()
+                .id(inv.getArgument(0, Student.class).getId()).build());
+        Training training = Training.builder().id("t1").title("Robotique").build();
+        when(trainingService.getTrainingOrThrow("t1")).thenReturn(training);
+        when(trainingService.toResponse(training)).thenReturn(TrainingResponse.builder().id("t1").build());
+        return ArgumentCaptor.forClass(Query.class);
+    }
+
+    @Test
+    @DisplayName("view=minimal leaves attendance and progress out of the query and resolves nothing")
+    void testMinimalView() {
+        ArgumentCaptor<Query> query = readEnrollments();
+
+        List<EnrollmentResponse> responses = service(null).findByTrainingId("t1", EnrollmentFields.of("minimal", null));
+
+        verify(mongoTemplate).find(query.capture(), eq(Enrollment.class));
+        Document projection = query.getValue().getFieldsObject();
+        assertEquals(0, projection.get("attendance"));
+        assertEquals(0, projection.get("progressSnapshot"));
+        assertEquals(2, responses.size());
+        assertNull(responses.get(0).getAttendance());
+        assertNull(responses.get(0).getProgressSnapshot());
+        assertNull(responses.get(0).getStudent());
+        assertNull(responses.get(0).getTraining());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Student.class));
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Training.class));
+        verify(trainingService, never()).toResponse(any());
+    }
+
+    @Test
+    @DisplayName("The full view reads every part and resolves students with one $in query")
+    void testFullView() {
+        ArgumentCaptor<Query> query = readEnrollments();
+
+        List<EnrollmentResponse> responses = service(null).findByTrainingId("t1", EnrollmentFields.FULL);
+
+        verify(mongoTemplate).find(query.capture(), eq(Enrollment.class));
+        assertTrue(query.getValue().getFieldsObject().isEmpty());
+        assertEquals("s2", responses.get(1).getStudent().getId());
+        assertEquals("t1", responses.get(1).getTraining().getId());
+        assertNotNull(responses.get(0).getAttendance());
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Student.class));
+        // The training was already loaded to check it exists
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Training.class));
+    }
+
+    @Test
+    @DisplayName("fields= overrides view= and selects exactly the listed parts")
+    void testFieldsOverrideView() {
+        ArgumentCaptor<Query> query = readEnrollments();
+
+        List<EnrollmentResponse> responses = service(null)
+                .findByTrainingId("t1", EnrollmentFields.of("minimal", "progress, student"));
+
+        verify(mongoTemplate).find(query.capture(), eq(Enrollment.class));
+        assertEquals(0, query.getValue().getFieldsObject().get("attendance"));
+        assertFalse(query.getValue().getFieldsObject().containsKey("progressSnapshot"));
+        assertNotNull(responses.get(0).getProgressSnapshot());
+        assertEquals("s1", responses.get(0).getStudent().getId());
+        assertNull(responses.get(0).getAttendance());
+        assertNull(responses.get(0).getTraining());
+    }
+
+    @Test
+    @DisplayName("Unknown fields and views are rejected as bad requests")
+    void testUnknownField() {
+        BadRequestException e = assertThrows(BadRequestException.class, () -> EnrollmentFields.of(null, "progress,notes"));
+        assertTrue(e.getMessage().contains("notes"));
+        assertThrows(BadRequestException.class, () -> EnrollmentFields.of("compact", null));
+    }
+
+    @Test
+    @DisplayName("Reassignment moves the student and sets the enrollment's group")
+    void testReassign() {
+        when(enrollmentRepository.findById("e1")).thenReturn(Optional.of(enrollment("e1", "s1", "g1")));
+
+        EnrollmentResponse response = service(MongoTransactionRunnerTest.runner(0, "", 1)).reassignGroup("e1", "g2");
+
+        assertEquals("g2", response.getGroupId());
+        assertEquals("g2", storedGroupIds.get("e1"));
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(Group.class));
+    }
+
+    @Test
+    @DisplayName("A re-run after an unknown commit result that was applied is not a conflict")
+    void testRerunAfterAppliedCommit() {
+        when(enrollmentRepository.findById("e1")).thenReturn(Optional.of(enrollment("e1", "s1", "g1")));
+
+        EnrollmentResponse response = service(MongoTransactionRunnerTest.runner(1, "UnknownTransactionCommitResult", 3))
+                .reassignGroup("e1", "g2");
+
+        assertEquals("g2", response.getGroupId());
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(Enrollment.class));
+    }
+
+    @Test
+    @DisplayName("An enrollment moved concurrently to another group is reported as a conflict")
+    void testConcurrentReassign() {
+        Enrollment read = enrollment("e1", "s1", "g1");
+        when(enrollmentRepository.findById("e1")).thenReturn(Optional.of(read));
+        storedGroupIds.put("e1", "g3");
+
+        assertThrows(ConflictException.class,
+                () -> service(MongoTransactionRunnerTest.runner(0, "", 1)).reassignGroup("e1", "g2"));
+        assertEquals("g3", storedGroupIds.get("e1"));
+    }
+
+    @Test
+    @DisplayName("Bulk reassignment skips enrollments already in the group")
+    void testBulkReassign() {
+        when(mongoTemplate.find(any(Query.class), eq(Enrollment.class)))
+                .thenReturn(List.of(enrollment("e1", "s1", "g1"), enrollment("e2", "s2", null), enrollment("e3", "s9", "g2")));
+
+        EnrollmentReassignResponse response = service(MongoTransactionRunnerTest.runner(0, "", 1))
+                .reassignGroup(List.of("e1", "e2", "e3"), "g2");
+
+        assertEquals(2, response.getMoved());
+        assertEquals(List.of("g1"), response.getFromGroupIds());
+        assertEquals(3, response.getStudentCount());
+        assertEquals("g2", storedGroupIds.get("e2"));
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(Enrollment.class));
+    }
+
+    @Test
+    @DisplayName("Bulk reassignment of unknown enrollments is a 404")
+    void testBulkReassignUnknown() {
+        when(mongoTemplate.find(any(Query.class), eq(Enrollment.class))).thenReturn(List.of(enrollment("e1", "s1", "g1")));
+
+        ResourceNotFoundException e = assertThrows(ResourceNotFoundException.class,
+                () -> service(MongoTransactionRunnerTest.runner(0, "", 1)).reassignGroup(List.of("e1", "e4"), "g2"));
+        assertTrue(e.getMessage().contains("e4"));
+    }
+}
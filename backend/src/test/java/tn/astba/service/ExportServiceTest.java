@@ -0,0 +1,95 @@
+package tn.astba.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+import tn.astba.domain.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ExportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private ExportService service;
+
+    @BeforeEach
+    void setUp() {
+        // Version 1 had an extra session N1-S7 and "s-old" where version 2 has "s-new"
+        List<Level> v1 = TrainingService.generateDefaultLevels();
+        v1.get(0).getSessions().get(0).setSessionId("s-old");
+        v1.get(0).getSessions().add(Session.builder().sessionId("s-extra").sessionNumber(7).build());
+        List<Level> v2 = TrainingService.generateDefaultLevels();
+        v2.get(0).getSessions().get(0).setSessionId("s-new");
+
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findOne(any(Query.class), eq(Training.class)))
+                .thenReturn(Training.builder().id("t1").title("Robotique").levels(v2).structureVersion(2).build());
+        when(mongoTemplate.findOne(any(Query.class), eq(TrainingStructure.class)))
+                .thenReturn(TrainingStructure.builder().trainingId("t1").version(1).levels(v1).build());
+        when(mongoTemplate.findDistinct(any(Query.class), eq("structureVersion"), eq(Enrollment.class), eq(Integer.class)))
+                .thenReturn(List.of(2));
+        when(mongoTemplate.exists(any(Query.class), eq(Enrollment.class))).thenReturn(true);
+        when(mongoTemplate.stream(any(Query.class), eq(Enrollment.class))).thenAnswer(inv -> Stream.of(
+                enrollment("st1", null, Map.of("s-old", AttendanceStatus.PRESENT, "s-extra", AttendanceStatus.ABSENT)),
+                enrollment("st2", 2, Map.of("s-new", AttendanceStatus.EXCUSED))));
+        when(mongoTemplate.find(any(Query.class), eq(Student.class))).thenReturn(List.of(
+                Student.builder().id("st1").firstName("Amine").lastName("Ben Salah").build()));
+        when(mongoTemplate.find(any(Query.class), eq(Group.class))).thenReturn(new ArrayList<>());
+
+        service = new ExportService(mongoTemplate, objectMapper,
+                new TrainingStructureService(mongoTemplate, mock(ReferenceCache.class)));
+        ReflectionTestUtils.setField(service, "batchSize", 500);
+    }
+
+    private static Enrollment enrollment(String studentId, Integer version, Map<String, AttendanceStatus> marks) {
+        Map<String, AttendanceEntry> attendance = new HashMap<>();
+        marks.forEach((id, status) -> attendance.put(id, AttendanceEntry.builder().status(status).build()));
+        return Enrollment.builder().studentId(studentId).trainingId("t1").structureVersion(version)
+                .attendance(attendance).build();
+    }
+
+    @Test
+    @DisplayName("Attendance matrix rows are read against each enrollment's pinned structure")
+    void testAttendanceMatrixVersions() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.attendanceMatrix("t1", ExportFormat.NDJSON).writeTo(out);
+        List<JsonNode> rows = out.toString(StandardCharsets.UTF_8).lines().map(line -> {
+            try {
+                return objectMapper.readTree(line);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).toList();
+
+        assertEquals(2, rows.size());
+        JsonNode pinnedV1 = rows.get(0);
+        assertEquals(1, pinnedV1.get("structureVersion").asInt());
+        assertEquals("Ben Salah", pinnedV1.get("lastName").asText());
+        assertEquals("PRESENT", pinnedV1.get("N1-S1").asText());
+        assertEquals("ABSENT", pinnedV1.get("N1-S7").asText());
+        assertEquals(1, pinnedV1.get("attendedCount").asInt());
+
+        JsonNode pinnedV2 = rows.get(1);
+        assertEquals(2, pinnedV2.get("structureVersion").asInt());
+        assertEquals("EXCUSED", pinnedV2.get("N1-S1").asText());
+        assertTrue(pinnedV2.get("N1-S7").isNull());
+        assertEquals(1, pinnedV2.get("attendedCount").asInt());
+    }
+}
@@ -0,0 +1,194 @@
+package tn.astba.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import tn.astba.domain.*;
+import tn.astba.dto.GroupMembershipRequest;
+import tn.astba.dto.GroupMembershipResponse;
+import tn.astba.dto.GroupResponse;
+import tn.astba.dto.StudentResponse;
+import tn.astba.repository.GroupRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class GroupServiceTest {
+
+    private GroupRepository groupRepository;
+    private MongoTemplate mongoTemplate;
+    private ReferenceCache referenceCache;
+    private BulkOperations bulkOps;
+    private GroupService service;
+
+    @BeforeEach
+    void setUp() {
+        groupRepository = mock(GroupRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        referenceCache = mock(ReferenceCache.class);
+        bulkOps = mock(BulkOperations.class);
+
+        Training training = Training.builder().id("t1").title("Robotique")
+                .levels(TrainingService.generateDefaultLevels()).structureVersion(1).build();
+        TrainingService trainingService = mock(TrainingService.class);
+        when(trainingService.getTrainingOrThrow("t1")).thenReturn(training);
+        when(referenceCache.training("t1")).thenReturn(Optional.of(training));
+        when(referenceCache.user("u1")).thenReturn(Optional.of(User.builder().id("u1").firstName("Sami").lastName("Trabelsi").build()));
+        when(mongoTemplate.find(any(Query.class), eq(Student.class))).thenAnswer(inv -> List.of(
+                Student.builder().id("s1").firstName("Amine").build(),
+                Student.builder().id("s2").firstName("Sarra").build()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Enrollment.class)).thenReturn(bulkOps);
+        when(bulkOps.insert(anyList())).thenReturn(bulkOps);
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.getInsertedCount()).thenReturn(1);
+        when(bulkOps.execute()).thenReturn(result);
+
+        StudentService studentService = mock(StudentService.class);
+        when(studentService.toResponse(any())).thenAnswer(inv -> StudentResponse.builder()
+                .id(inv.getArgument(0, Student.class).getId()).build());
+        TrainingStructureService structureService = new TrainingStructureService(mongoTemplate, referenceCache);
+        service = new GroupService(groupRepository, trainingService, studentService, mongoTemplate, structureService,
+                referenceCache, mock(SeanceReadModel.class));
+    }
+
+    private static Group group(String id, String trainerId, String... studentIds) {
+        return Group.builder().id(id).name("Groupe " + id).trainingId("t1").trainerId(trainerId)
+                .studentIds(new ArrayList<>(List.of(studentIds))).build();
+    }
+
+    private void previousState(Group group) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Group.class))).thenReturn(group);
+    }
+
+    @Test
+    @DisplayName("A single group is hydrated from the reference cache plus one student query")
+    void testFindByIdUsesCache() {
+        when(referenceCache.group("g1")).thenReturn(Optional.of(group("g1", "u1", "s1", "s2")));
+
+        GroupResponse response = service.findById("g1");
+
+        assertEquals("Robotique", response.getTrainingTitle());
+        assertEquals("Sami Trabelsi", response.getTrainerName());
+        assertEquals(2, response.getStudents().size());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Training.class));
+        verify(mongoTemplate, never()).find(any(Query.class), eq(User.class));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Student.class));
+    }
+
+    @Test
+    @DisplayName("A page of groups is hydrated with one $in query per referenced collection")
+    void testFindAllConstantQueries() {
+        List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < 25; i++) groups.add(group("g" + i, "u" + (i % 3), "s1", "s2"));
+        when(groupRepository.findAll()).thenReturn(groups);
+        when(mongoTemplate.find(any(Query.class), eq(Training.class)))
+                .thenReturn(List.of(Training.builder().id("t1").title("Robotique").build()));
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenReturn(List.of(User.builder().id("u0").firstName("Sami").lastName("Trabelsi").build()));
+
+        List<GroupResponse> responses = service.findAll(GroupView.FULL);
+
+        assertEquals(25, responses.size());
+        assertEquals("Robotique", responses.get(7).getTrainingTitle());
+        assertEquals("Sami Trabelsi", responses.get(3).getTrainerName());
+        assertNull(responses.get(1).getTrainerName());
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Training.class));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(User.class));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Student.class));
+        verifyNoInteractions(referenceCache);
+    }
+
+    @Test
+    @DisplayName("The summary view returns counts without loading students")
+    void testSummaryView() {
+        when(groupRepository.findAll()).thenReturn(List.of(group("g1", null, "s1", "s2"), group("g2", null)));
+
+        List<GroupResponse> responses = service.findAll(GroupView.SUMMARY);
+
+        assertEquals(2, responses.get(0).getStudentCount());
+        assertEquals(0, responses.get(1).getStudentCount());
+        assertNull(responses.get(0).getStudents());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Student.class));
+    }
+
+    @Test
+    @DisplayName("Membership changes are single atomic updates and the counts derive from the prior state")
+    @SuppressWarnings("unchecked")
+    void testUpdateMembers() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Group.class)))
+                .thenReturn(group("g1", null, "s2", "s3"))         // before $addToSet [s1, s2]
+                .thenReturn(group("g1", null, "s1", "s2", "s3"));  // before $pullAll [s3, s4]
+
+        GroupMembershipRequest request = new GroupMembershipRequest();
+        request.setAdd(List.of("s1", "s2"));
+        request.setRemove(List.of("s3", "s4"));
+        GroupMembershipResponse response = service.updateMembers("g1", request);
+
+        assertEquals(List.of("s1"), response.getAdded());
+        assertEquals(List.of("s3"), response.getRemoved());
+        assertEquals(2, response.getStudentCount());
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), updates.capture(),
+                any(FindAndModifyOptions.class), eq(Group.class));
+        Document addToSet = updates.getAllValues().get(0).getUpdateObject().get("$addToSet", Document.class);
+        Object each = ((Update.Modifier) addToSet.get("studentIds")).getValue();
+        assertEquals(List.of("s1", "s2"), List.of((Object[]) each));
+        assertTrue(updates.getAllValues().get(1).getUpdateObject().containsKey("$pullAll"));
+        // Only the student actually added is enrolled
+        ArgumentCaptor<List<Enrollment>> enrolled = ArgumentCaptor.forClass(List.class);
+        verify(bulkOps).insert(enrolled.capture());
+        assertEquals(List.of("s1"), enrolled.getValue().stream().map(Enrollment::getStudentId).toList());
+        verify(referenceCache, times(2)).evictGroup("g1");
+    }
+
+    @Test
+    @DisplayName("Students already enrolled (duplicate key 11000) do not fail the auto-enrollment")
+    void testAutoEnrollDuplicates() {
+        previousState(group("g1", null));
+        BulkOperationException duplicates = bulkFailure(11000);
+        when(bulkOps.execute()).thenThrow(duplicates);
+
+        GroupResponse response = service.addStudent("g1", "s1");
+
+        assertEquals(1, response.getStudentCount());
+    }
+
+    @Test
+    @DisplayName("Other bulk insert errors are not swallowed")
+    void testAutoEnrollOtherError() {
+        previousState(group("g1", null));
+        BulkOperationException failure = bulkFailure(121);
+        when(bulkOps.execute()).thenThrow(failure);
+
+        assertSame(failure, assertThrows(BulkOperationException.class, () -> service.addStudent("g1", "s1")));
+    }
+
+    private static BulkOperationException bulkFailure(int code) {
+        BulkOperationException e = mock(BulkOperationException.class);
+        when(e.getErrors()).thenReturn(List.of(new BulkWriteError(code, "erreur", new BsonDocument(), 0)));
+        BulkWriteResult result = mock(BulkWriteResult.class);
+        when(result.getInsertedCount()).thenReturn(0);
+        when(e.getResult()).thenReturn(result);
+        return e;
+    }
+}
@@ -0,0 +1,89 @@
+package tn.astba.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import tn.astba.domain.User;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LastLoginRecorderTest {
+
+    private static final Instant T0 = Instant.parse("2026-03-01T08:00:00Z");
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations ops;
+    private LastLoginRecorder recorder;
+    /** userId -> $max value of the last bulk write that was built */
+    private final Map<String, Instant> written = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        ops = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)).thenReturn(ops);
+        when(ops.updateOne(any(Query.class), any(Update.class))).thenAnswer(inv -> {
+            String userId = inv.getArgument(0, Query.class).getQueryObject().getString("_id");
+            Document max = inv.getArgument(1, Update.class).getUpdateObject().get("$max", Document.class);
+            written.put(userId, (Instant) max.get("lastLoginAt"));
+            return ops;
+        });
+        recorder = new LastLoginRecorder(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Logins between two flushes coalesce into one $max per user")
+    void testCoalesce() {
+        recorder.record("u1", T0.plusSeconds(5));
+        recorder.record("u1", T0);
+        recorder.record("u2", T0);
+
+        recorder.flush();
+
+        assertEquals(Map.of("u1", T0.plusSeconds(5), "u2", T0), written);
+        verify(ops).execute();
+        recorder.flush();
+        verify(mongoTemplate, times(1)).bulkOps(any(BulkOperations.BulkMode.class), eq(User.class));
+    }
+
+    @Test
+    @DisplayName("A failed flush is re-queued and the next one writes the newest timestamp")
+    void testRequeueAfterFailure() {
+        recorder.record("u1", T0.plusSeconds(10));
+        recorder.record("u2", T0);
+        when(ops.execute()).thenThrow(new IllegalStateException("mongo")).thenReturn(null);
+
+        recorder.flush();
+        // Logins recorded before the retry, one older and one newer than the failed values
+        recorder.record("u1", T0);
+        recorder.record("u2", T0.plusSeconds(20));
+        written.clear();
+        recorder.flush();
+
+        assertEquals(Map.of("u1", T0.plusSeconds(10), "u2", T0.plusSeconds(20)), written);
+        verify(ops, times(2)).execute();
+    }
+
+    @Test
+    @DisplayName("Pending logins are written on shutdown")
+    void testFlushOnShutdown() {
+        recorder.record("u1", T0);
+
+        recorder.flushOnShutdown();
+
+        assertEquals(Map.of("u1", T0), written);
+        verify(ops).execute();
+    }
+}
@@ -0,0 +1,81 @@
+package tn.astba.service;
+
+import com.mongodb.MongoException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.astba.exception.ConflictException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MongoTransactionRunnerTest {
+
+    /** Template that runs the callback, failing the first {@code failures} attempts with {@code label} */
+    @SuppressWarnings("unchecked")
+    static MongoTransactionRunner runner(int failures, String label, int maxAttempts) {
+        AtomicInteger attempts = new AtomicInteger();
+        TransactionTemplate template = mock(TransactionTemplate.class);
+        when(template.execute(any())).thenAnswer(inv -> {
+            Object result = inv.getArgument(0, TransactionCallback.class).doInTransaction(null);
+            if (attempts.incrementAndGet() <= failures) {
+                MongoException e = new MongoException(112, "WriteConflict");
+                e.addLabel(label);
+                throw e;
+            }
+            return result;
+        });
+        ObjectProvider<TransactionTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(template);
+        return new MongoTransactionRunner(provider, maxAttempts);
+    }
+
+    @Test
+    @DisplayName("Transient failures re-run the whole unit until it commits")
+    void testTransientRetry() {
+        AtomicInteger runs = new AtomicInteger();
+
+        int result = runner(2, "TransientTransactionError", 3).inTransaction(runs::incrementAndGet);
+
+        assertEquals(3, result);
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    @DisplayName("The last transient failure is rethrown once attempts are exhausted")
+    void testAttemptsExhausted() {
+        AtomicInteger runs = new AtomicInteger();
+        MongoTransactionRunner runner = runner(5, "UnknownTransactionCommitResult", 3);
+
+        assertThrows(MongoException.class, () -> runner.inTransaction(runs::incrementAndGet));
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    @DisplayName("Business errors are not retried")
+    void testConflictNotRetried() {
+        AtomicInteger runs = new AtomicInteger();
+        MongoTransactionRunner runner = runner(0, "TransientTransactionError", 3);
+
+        assertThrows(ConflictException.class, () -> runner.inTransaction(() -> {
+            runs.incrementAndGet();
+            throw new ConflictException("modifiée entre-temps");
+        }));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    @DisplayName("Without a transaction manager the work runs once, directly")
+    @SuppressWarnings("unchecked")
+    void testWithoutTransactions() {
+        ObjectProvider<TransactionTemplate> provider = mock(ObjectProvider.class);
+        MongoTransactionRunner runner = new MongoTransactionRunner(provider, 3);
+
+        assertEquals("ok", runner.inTransaction(() -> "ok"));
+    }
+}
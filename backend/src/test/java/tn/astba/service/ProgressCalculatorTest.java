@@ -226,4 +226,36 @@ class ProgressCalculatorTest {
 
         assertEquals(previousCompletedAt, snapshot.getCompletedAt());
     }
+
+    @Test
+    @DisplayName("Progress is measured against the pinned structure version, not the edited one")
+    void testPinnedStructureVersion() {
+        SessionIndex original = SessionIndex.compile(training.getLevels());
+
+        Map<String, AttendanceEntry> attendance = new HashMap<>();
+        for (Session session : training.getLevels().get(0).getSessions()) {
+            attendance.put(session.getSessionId(), AttendanceEntry.builder()
+                    .status(AttendanceStatus.PRESENT)
+                    .markedAt(Instant.now())
+                    .build());
+        }
+        Enrollment enrollment = Enrollment.builder()
+                .id("e1")
+                .studentId("s1")
+                .trainingId("training-1")
+                .attendance(attendance)
+                .build();
+
+        // New version: a 7th session is added to level 1
+        training.getLevels().get(0).getSessions().add(Session.builder()
+                .sessionId("extra").sessionNumber(7).title("Séance 7").build());
+
+        ProgressSnapshot pinned = ProgressCalculator.compute(enrollment, original);
+        ProgressSnapshot current = ProgressCalculator.compute(enrollment, training);
+
+        assertEquals(24, pinned.getTotalSessions());
+        assertEquals(List.of(1), pinned.getLevelsValidated());
+        assertEquals(25, current.getTotalSessions());
+        assertTrue(current.getLevelsValidated().isEmpty());
+    }
 }
@@ -0,0 +1,252 @@
+package tn.astba.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import tn.astba.domain.Enrollment;
+import tn.astba.domain.ProgressRecomputeJob;
+import tn.astba.domain.RecomputeStatus;
+import tn.astba.domain.Training;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the recompute coordinator against a mocked MongoTemplate whose job collection is a
+ * single in-memory {@link ProgressRecomputeJob}, updated and matched like MongoDB would.
+ */
+class ProgressRecomputeServiceTest {
+
+    private static final String TRAINING_ID = "t1";
+
+    private MongoTemplate mongoTemplate;
+    private ProgressRecomputeService service;
+    private ProgressRecomputeJob job;
+    private final List<String> checkpoints = Collections.synchronizedList(new ArrayList<>());
+    private final List<Query> streamQueries = Collections.synchronizedList(new ArrayList<>());
+    private final List<Enrollment> enrollments = IntStream.rangeClosed(1, 5)
+            .mapToObj(i -> Enrollment.builder().id("e" + i).trainingId(TRAINING_ID).structureVersion(1)
+                    .updatedAt(Instant.EPOCH).build())
+            .toList();
+    /** Called after each checkpoint is applied, with the generation it belonged to */
+    private volatile LongConsumer onCheckpoint = generation -> { };
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        Training training = Training.builder().id(TRAINING_ID).title("Robotique")
+                .levels(TrainingService.generateDefaultLevels()).structureVersion(2).build();
+        when(mongoTemplate.findOne(any(Query.class), eq(Training.class))).thenReturn(training);
+        when(mongoTemplate.count(any(Query.class), eq(Enrollment.class))).thenReturn((long) enrollments.size());
+        when(mongoTemplate.stream(any(Query.class), eq(Enrollment.class))).thenAnswer(inv -> {
+            Query query = inv.getArgument(0);
+            streamQueries.add(query);
+            Object id = query.getQueryObject().get("_id");
+            String after = id instanceof Document d ? (String) d.get("$gt") : null;
+            return enrollments.stream().filter(e -> after == null || e.getId().compareTo(after) > 0);
+        });
+        BulkOperations bulk = mock(BulkOperations.class);
+        BulkWriteResult written = mock(BulkWriteResult.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Enrollment.class)).thenReturn(bulk);
+        when(bulk.updateOne(any(Query.class), any(Update.class))).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(written);
+        when(written.getModifiedCount()).thenReturn(1);
+
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ProgressRecomputeJob.class)))
+                .thenAnswer(inv -> {
+                    synchronized (this) {
+                        if (job == null) job = ProgressRecomputeJob.builder().trainingId(TRAINING_ID).build();
+                        apply(inv.getArgument(1));
+                    }
+                    return UpdateResult.acknowledged(1, 1L, null);
+                });
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(ProgressRecomputeJob.class))).thenAnswer(inv -> {
+                    synchronized (this) {
+                        if (job == null || !matches(inv.<Query>getArgument(0).getQueryObject())) return null;
+                        apply(inv.getArgument(1));
+                        return copy();
+                    }
+                });
+        when(mongoTemplate.findById(TRAINING_ID, ProgressRecomputeJob.class)).thenAnswer(inv -> state());
+        when(mongoTemplate.find(any(Query.class), eq(ProgressRecomputeJob.class))).thenAnswer(inv -> {
+            synchronized (this) {
+                return job != null && matches(inv.<Query>getArgument(0).getQueryObject()) ? List.of(copy()) : List.of();
+            }
+        });
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(ProgressRecomputeJob.class)))
+                .thenAnswer(inv -> {
+                    Update update = inv.getArgument(1);
+                    long generation;
+                    synchronized (this) {
+                        if (!matches(inv.<Query>getArgument(0).getQueryObject())) {
+                            return UpdateResult.acknowledged(0, 0L, null);
+                        }
+                        apply(update);
+                        generation = job.getGeneration();
+                    }
+                    Document set = update.getUpdateObject().get("$set", Document.class);
+                    if (set != null && set.containsKey("lastEnrollmentId")) {
+                        checkpoints.add((String) set.get("lastEnrollmentId"));
+                        onCheckpoint.accept(generation);
+                    }
+                    return UpdateResult.acknowledged(1, 1L, null);
+                });
+
+        service = new ProgressRecomputeService(mongoTemplate,
+                new TrainingStructureService(mongoTemplate, mock(ReferenceCache.class)), 1, 2, 0, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("The checkpoint advances batch by batch, in _id order, up to completion")
+    void testCheckpointAdvance() throws Exception {
+        service.schedule(TRAINING_ID);
+        await(() -> state().getStatus() == RecomputeStatus.COMPLETED);
+
+        assertEquals(List.of("e2", "e4", "e5"), checkpoints);
+        ProgressRecomputeJob done = state();
+        assertEquals(5, done.getTotal());
+        assertEquals(5, done.getProcessed());
+        assertEquals(3, done.getUpdated());
+        assertEquals("e5", done.getLastEnrollmentId());
+        assertEquals(100, service.getStatus(TRAINING_ID).getPercent());
+    }
+
+    @Test
+    @DisplayName("A job whose owner stopped sending heartbeats is taken over after its checkpoint")
+    void testStaleTakeover() throws Exception {
+        job = ProgressRecomputeJob.builder().trainingId(TRAINING_ID).status(RecomputeStatus.RUNNING)
+                .generation(1).total(5).processed(2).lastEnrollmentId("e2")
+                .owner("autre-noeud").heartbeatAt(Instant.now().minusSeconds(600)).build();
+
+        service.resumeAbandoned();
+        await(() -> state().getStatus() == RecomputeStatus.COMPLETED);
+
+        assertEquals(List.of("e4", "e5"), checkpoints);
+        assertEquals(5, state().getProcessed());
+        assertNotEquals("autre-noeud", state().getOwner());
+        assertEquals(1, streamQueries.size());
+        assertEquals(new Document("$gt", "e2"), streamQueries.get(0).getQueryObject().get("_id"));
+        // Resumed, not restarted: the total is not counted again
+        verify(mongoTemplate, never()).count(any(Query.class), eq(Enrollment.class));
+    }
+
+    @Test
+    @DisplayName("A job still sending heartbeats is not taken over")
+    void testLiveJobNotTakenOver() throws Exception {
+        job = ProgressRecomputeJob.builder().trainingId(TRAINING_ID).status(RecomputeStatus.RUNNING)
+                .generation(1).lastEnrollmentId("e2")
+                .owner("autre-noeud").heartbeatAt(Instant.now()).build();
+
+        service.resumeAbandoned();
+        Thread.sleep(200);
+
+        assertEquals("autre-noeud", state().getOwner());
+        assertTrue(streamQueries.isEmpty());
+        assertTrue(checkpoints.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Rescheduling a running job supersedes it; the new run restarts from the beginning")
+    void testSupersedeOnReschedule() throws Exception {
+        onCheckpoint = generation -> {
+            if (generation == 1) {
+                onCheckpoint = g -> { };
+                service.schedule(TRAINING_ID);
+            }
+        };
+        service.schedule(TRAINING_ID);
+        await(() -> state().getStatus() == RecomputeStatus.COMPLETED);
+
+        ProgressRecomputeJob done = state();
+        assertEquals(2, done.getGeneration());
+        assertEquals(5, done.getProcessed());
+        assertEquals(2, streamQueries.size());
+        assertNull(streamQueries.get(1).getQueryObject().get("_id"), "the new run starts over");
+        // Generation 1 stopped at its first checkpoint; generation 2 went through every batch
+        assertEquals(List.of("e2", "e2", "e4", "e5"), checkpoints);
+    }
+
+    // --- in-memory job document ---
+
+    private synchronized ProgressRecomputeJob state() {
+        return copy();
+    }
+
+    private ProgressRecomputeJob copy() {
+        ProgressRecomputeJob copy = new ProgressRecomputeJob();
+        BeanUtils.copyProperties(job, copy);
+        return copy;
+    }
+
+    private void apply(Update update) {
+        BeanWrapper target = new BeanWrapperImpl(job);
+        Document object = update.getUpdateObject();
+        Document set = object.get("$set", Document.class);
+        if (set != null) set.forEach(target::setPropertyValue);
+        Document inc = object.get("$inc", Document.class);
+        if (inc != null) inc.forEach((field, delta) -> target.setPropertyValue(field,
+                ((Number) target.getPropertyValue(field)).longValue() + ((Number) delta).longValue()));
+        Document unset = object.get("$unset", Document.class);
+        if (unset != null) unset.keySet().forEach(field -> target.setPropertyValue(field, null));
+    }
+
+    /** Equality, $lt, $and and $or: what the service's job queries use. */
+    private boolean matches(Document query) {
+        BeanWrapper source = new BeanWrapperImpl(job);
+        for (Map.Entry<String, Object> condition : query.entrySet()) {
+            String field = condition.getKey();
+            Object expected = condition.getValue();
+            boolean ok = switch (field) {
+                case "$and" -> ((List<?>) expected).stream().allMatch(c -> matches((Document) c));
+                case "$or" -> ((List<?>) expected).stream().anyMatch(c -> matches((Document) c));
+                default -> {
+                    Object actual = source.getPropertyValue(field.equals("_id") ? "trainingId" : field);
+                    if (expected instanceof Document op && op.containsKey("$lt")) {
+                        yield actual != null && ((Instant) actual).isBefore((Instant) op.get("$lt"));
+                    }
+                    yield Objects.equals(actual, expected);
+                }
+            };
+            if (!ok) return false;
+        }
+        return true;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) fail("Recalcul non terminé à temps");
+            Thread.sleep(10);
+        }
+    }
+}
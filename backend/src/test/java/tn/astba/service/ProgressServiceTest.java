@@ -0,0 +1,85 @@
+package tn.astba.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import tn.astba.domain.*;
+import tn.astba.dto.StudentProgressResponse;
+import tn.astba.exception.ResourceNotFoundException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ProgressServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private ProgressService service;
+    private Training robotique;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        robotique = Training.builder().id("t1").title("Robotique")
+                .levels(TrainingService.generateDefaultLevels()).structureVersion(1).build();
+        service = new ProgressService(mock(EnrollmentService.class), mongoTemplate,
+                new TrainingStructureService(mongoTemplate, mock(ReferenceCache.class)));
+    }
+
+    private Enrollment enrollment(String id, String trainingId, Map<String, AttendanceEntry> attendance) {
+        return Enrollment.builder().id(id).studentId("s1").trainingId(trainingId).structureVersion(1)
+                .attendance(attendance).build();
+    }
+
+    @Test
+    @DisplayName("Progress of every enrollment is built from two queries")
+    void testTwoQueries() {
+        Map<String, AttendanceEntry> attendance = new HashMap<>();
+        attendance.put(robotique.getLevels().get(0).getSessions().get(0).getSessionId(),
+                AttendanceEntry.builder().status(AttendanceStatus.PRESENT).build());
+        Training arduino = Training.builder().id("t2").title("Arduino")
+                .levels(TrainingService.generateDefaultLevels()).structureVersion(1).build();
+        when(mongoTemplate.find(any(Query.class), eq(Enrollment.class)))
+                .thenReturn(List.of(enrollment("e1", "t1", attendance), enrollment("e2", "t2", null)));
+        when(mongoTemplate.find(any(Query.class), eq(Training.class))).thenReturn(List.of(arduino, robotique));
+
+        List<StudentProgressResponse> progress = service.getStudentProgress("s1");
+
+        assertEquals(List.of("Robotique", "Arduino"), progress.stream().map(StudentProgressResponse::getTrainingTitle).toList());
+        assertEquals(23, progress.get(0).getMissedSessions().size());
+        assertEquals(24, progress.get(1).getMissedSessions().size());
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Enrollment.class));
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(Training.class));
+        verify(mongoTemplate, never()).exists(any(Query.class), eq(Student.class));
+    }
+
+    @Test
+    @DisplayName("An unknown student is a 404, a student without enrollments an empty list")
+    void testUnknownStudent() {
+        when(mongoTemplate.find(any(Query.class), eq(Enrollment.class))).thenReturn(List.of());
+        when(mongoTemplate.exists(any(Query.class), eq(Student.class))).thenReturn(false, true);
+
+        assertThrows(ResourceNotFoundException.class, () -> service.getStudentProgress("inconnu"));
+        assertTrue(service.getStudentProgress("s1").isEmpty());
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Training.class));
+    }
+
+    @Test
+    @DisplayName("An enrollment whose training was deleted is a 404")
+    void testDeletedTraining() {
+        when(mongoTemplate.find(any(Query.class), eq(Enrollment.class)))
+                .thenReturn(List.of(enrollment("e1", "t1", null), enrollment("e2", "supprimee", null)));
+        when(mongoTemplate.find(any(Query.class), eq(Training.class))).thenReturn(List.of(robotique));
+
+        ResourceNotFoundException e = assertThrows(ResourceNotFoundException.class,
+                () -> service.getStudentProgress("s1"));
+        assertTrue(e.getMessage().contains("supprimee"));
+    }
+}
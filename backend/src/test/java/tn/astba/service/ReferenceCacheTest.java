@@ -0,0 +1,66 @@
+package tn.astba.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tn.astba.domain.Group;
+import tn.astba.domain.Training;
+import tn.astba.repository.GroupRepository;
+import tn.astba.repository.TrainingRepository;
+import tn.astba.repository.UserRepository;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReferenceCacheTest {
+
+    private TrainingRepository trainingRepository;
+    private GroupRepository groupRepository;
+    private ReferenceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        trainingRepository = mock(TrainingRepository.class);
+        groupRepository = mock(GroupRepository.class);
+        cache = new ReferenceCache(trainingRepository, groupRepository, mock(UserRepository.class),
+                new RequestIdentityMap(), new SingleFlight(), 0, 100, 1024);
+    }
+
+    @Test
+    @DisplayName("Repeated lookups are served from the cache")
+    void testReadThrough() {
+        when(trainingRepository.findById("t1"))
+                .thenReturn(Optional.of(Training.builder().id("t1").title("Robotique").build()));
+
+        assertEquals("Robotique", cache.training("t1").orElseThrow().getTitle());
+        assertEquals("Robotique", cache.training("t1").orElseThrow().getTitle());
+        verify(trainingRepository, times(1)).findById("t1");
+    }
+
+    @Test
+    @DisplayName("Eviction makes the next lookup reload the document")
+    void testEvict() {
+        when(groupRepository.findById("g1"))
+                .thenReturn(Optional.of(Group.builder().id("g1").name("A").build()))
+                .thenReturn(Optional.of(Group.builder().id("g1").name("B").build()));
+
+        assertEquals("A", cache.group("g1").orElseThrow().getName());
+        cache.evictGroup("g1");
+        assertEquals("B", cache.group("g1").orElseThrow().getName());
+        verify(groupRepository, times(2)).findById("g1");
+    }
+
+    @Test
+    @DisplayName("Missing ids are not cached")
+    void testMissNotCached() {
+        when(trainingRepository.findById("t2"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(Training.builder().id("t2").build()));
+
+        assertTrue(cache.training("t2").isEmpty());
+        assertTrue(cache.training("t2").isPresent());
+        assertTrue(cache.training(null).isEmpty());
+    }
+}
@@ -0,0 +1,212 @@
+package tn.astba.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import tn.astba.domain.RefreshToken;
+import tn.astba.exception.BadRequestException;
+import tn.astba.repository.RefreshTokenRepository;
+import tn.astba.security.JwtService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RefreshTokenServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /** tokenHash -> stored document */
+    private final Map<String, RefreshToken> collection = new ConcurrentHashMap<>();
+    private MongoTemplate mongoTemplate;
+    private RefreshTokenRepository repository;
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        repository = mock(RefreshTokenRepository.class);
+        JwtService jwtService = mock(JwtService.class);
+        when(jwtService.getRefreshExpiration()).thenAnswer(inv -> Instant.now().plusSeconds(3600));
+
+        when(mongoTemplate.insert(any(RefreshToken.class))).thenAnswer(inv -> {
+            RefreshToken token = inv.getArgument(0);
+            token.setId("id-" + collection.size());
+            collection.put(token.getTokenHash(), token);
+            return token;
+        });
+        // Atomic like findAndModify: match on hash, not revoked and not expired, then set revokedAt
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(RefreshToken.class))).thenAnswer(inv -> {
+            synchronized (collection) {
+                Document query = inv.getArgument(0, Query.class).getQueryObject();
+                RefreshToken stored = collection.get(query.getString("tokenHash"));
+                Instant now = (Instant) query.get("expiresAt", Document.class).get("$gt");
+                if (stored == null || stored.getRevokedAt() != null || !stored.getExpiresAt().isAfter(now)) {
+                    return null;
+                }
+                RefreshToken before = copy(stored);
+                stored.setRevokedAt(now);
+                return before;
+            }
+        });
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(RefreshToken.class))).thenAnswer(inv -> {
+            String familyId = inv.getArgument(0, Query.class).getQueryObject().getString("familyId");
+            collection.values().stream()
+                    .filter(t -> familyId.equals(t.getFamilyId()) && t.getRevokedAt() == null)
+                    .forEach(t -> t.setRevokedAt(Instant.now()));
+            return null;
+        });
+        when(repository.findByTokenHash(any())).thenAnswer(inv -> Optional.ofNullable(collection.get(inv.getArgument(0))));
+
+        service = new RefreshTokenService(repository, jwtService, meterRegistry, mongoTemplate);
+        ReflectionTestUtils.setField(service, "reuseGraceSeconds", 10L);
+        ReflectionTestUtils.setField(service, "revokedRetentionDays", 7L);
+    }
+
+    private static RefreshToken copy(RefreshToken t) {
+        return RefreshToken.builder().id(t.getId()).userId(t.getUserId()).tokenHash(t.getTokenHash())
+                .familyId(t.getFamilyId()).expiresAt(t.getExpiresAt()).revokedAt(t.getRevokedAt()).build();
+    }
+
+    /** Log in with "t0" and rotate it to "t1": returns the family id */
+    private String rotated() {
+        service.storeRefreshToken("u1", "t0");
+        RefreshToken consumed = service.consumeRefreshToken("t0");
+        service.storeRotatedToken(consumed, "t1");
+        return consumed.getFamilyId();
+    }
+
+    private boolean active(String familyId) {
+        return collection.values().stream()
+                .anyMatch(t -> familyId.equals(t.getFamilyId()) && t.getRevokedAt() == null);
+    }
+
+    private double reuseDetected() {
+        return meterRegistry.counter("astba.refresh_tokens.reuse_detected").count();
+    }
+
+    @Test
+    @DisplayName("Rotation keeps the family and revokes the presented token")
+    void testRotation() {
+        String familyId = rotated();
+
+        assertNotNull(familyId);
+        assertEquals(2, collection.size());
+        assertTrue(collection.values().stream().allMatch(t -> familyId.equals(t.getFamilyId())));
+        assertEquals(1, collection.values().stream().filter(t -> t.getRevokedAt() == null).count());
+    }
+
+    @Test
+    @DisplayName("Of two concurrent refreshes with the same token exactly one wins")
+    void testConcurrentConsume() throws Exception {
+        service.storeRefreshToken("u1", "t0");
+        CountDownLatch start = new CountDownLatch(1);
+        Callable<Boolean> refresh = () -> {
+            start.await();
+            try {
+                service.consumeRefreshToken("t0");
+                return true;
+            } catch (BadRequestException e) {
+                return false;
+            }
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Boolean>> results = List.of(pool.submit(refresh), pool.submit(refresh));
+            start.countDown();
+            int winners = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(5, TimeUnit.SECONDS)) winners++;
+            }
+            assertEquals(1, winners);
+        } finally {
+            pool.shutdownNow();
+        }
+        // The loser replayed within the grace window: not treated as theft
+        assertEquals(0, reuseDetected());
+    }
+
+    @Test
+    @DisplayName("A replay inside the grace window is rejected without revoking the family")
+    void testReplayInsideGrace() {
+        String familyId = rotated();
+
+        assertThrows(BadRequestException.class, () -> service.consumeRefreshToken("t0"));
+        assertTrue(active(familyId));
+        assertEquals(0, reuseDetected());
+    }
+
+    @Test
+    @DisplayName("A replay after the grace window revokes the whole family")
+    void testReplayAfterGrace() {
+        String familyId = rotated();
+        collection.values().stream().filter(t -> t.getRevokedAt() != null)
+                .forEach(t -> t.setRevokedAt(Instant.now().minusSeconds(60)));
+
+        assertThrows(BadRequestException.class, () -> service.consumeRefreshToken("t0"));
+        assertFalse(active(familyId));
+        assertEquals(1, reuseDetected());
+    }
+
+    @Test
+    @DisplayName("Compaction purges expired tokens and revoked ones past the retention window")
+    void testCompact() {
+        when(repository.deleteByExpiresAtBefore(any(Instant.class))).thenReturn(3L);
+        when(repository.deleteByRevokedAtBefore(any(Instant.class))).thenReturn(2L);
+        when(repository.count()).thenReturn(40L);
+
+        Instant before = Instant.now();
+        service.compact();
+
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(repository).deleteByRevokedAtBefore(cutoff.capture());
+        assertFalse(cutoff.getValue().isAfter(Instant.now().minus(Duration.ofDays(7))));
+        assertFalse(cutoff.getValue().isBefore(before.minus(Duration.ofDays(7))));
+        assertEquals(3, meterRegistry.counter("astba.refresh_tokens.purged", "reason", "expired").count());
+        assertEquals(2, meterRegistry.counter("astba.refresh_tokens.purged", "reason", "revoked").count());
+        assertEquals(1, meterRegistry.timer("astba.refresh_tokens.compaction").count());
+    }
+
+    @Test
+    @DisplayName("A failed compaction is logged and retried on the next run")
+    void testCompactFailure() {
+        when(repository.deleteByExpiresAtBefore(any(Instant.class))).thenThrow(new IllegalStateException("mongo"));
+
+        assertDoesNotThrow(service::compact);
+        verify(repository, never()).deleteByRevokedAtBefore(any(Instant.class));
+        assertEquals(1, meterRegistry.timer("astba.refresh_tokens.compaction").count());
+    }
+
+    @Test
+    @DisplayName("An expired token is rejected and not treated as a replay")
+    void testExpired() {
+        service.storeRefreshToken("u1", "t0");
+        collection.values().forEach(t -> t.setExpiresAt(Instant.now().minusSeconds(1)));
+
+        assertThrows(BadRequestException.class, () -> service.consumeRefreshToken("t0"));
+        assertEquals(0, reuseDetected());
+        assertThrows(BadRequestException.class, () -> service.consumeRefreshToken("inconnu"));
+    }
+}
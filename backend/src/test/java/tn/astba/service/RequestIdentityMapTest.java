@@ -0,0 +1,68 @@
+package tn.astba.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import tn.astba.domain.Student;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestIdentityMapTest {
+
+    private final RequestIdentityMap identityMap = new RequestIdentityMap();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<String, Optional<Student>> loader = id -> {
+        loads.incrementAndGet();
+        return Optional.of(Student.builder().id(id).build());
+    };
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @Test
+    @DisplayName("Same id within a request is loaded once and yields the same instance")
+    void testOncePerRequest() {
+        startRequest();
+        Student first = identityMap.get(Student.class, "s1", loader).orElseThrow();
+        Student second = identityMap.get(Student.class, "s1", loader).orElseThrow();
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Evicted or new-request lookups hit the loader again")
+    void testEvictAndNewRequest() {
+        startRequest();
+        identityMap.get(Student.class, "s1", loader);
+        identityMap.evict(Student.class, "s1");
+        identityMap.get(Student.class, "s1", loader);
+        assertEquals(2, loads.get());
+
+        startRequest();
+        identityMap.get(Student.class, "s1", loader);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    @DisplayName("Outside a request every lookup goes to the loader")
+    void testNoRequest() {
+        identityMap.get(Student.class, "s1", loader);
+        identityMap.get(Student.class, "s1", loader);
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,173 @@
+package tn.astba.service;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import tn.astba.domain.Group;
+import tn.astba.domain.Seance;
+import tn.astba.domain.Training;
+import tn.astba.domain.User;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SeanceReadModelTest {
+
+    /** Runs the queued refreshes only when the test asks. */
+    private static class ManualExecutor extends AbstractExecutorService {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override public void execute(Runnable task) { tasks.add(task); }
+        void runAll() { while (!tasks.isEmpty()) tasks.poll().run(); }
+        @Override public void shutdown() { }
+        @Override public List<Runnable> shutdownNow() { return List.of(); }
+        @Override public boolean isShutdown() { return false; }
+        @Override public boolean isTerminated() { return false; }
+        @Override public boolean awaitTermination(long timeout, TimeUnit unit) { return true; }
+    }
+
+    private MongoTemplate mongoTemplate;
+    private ReferenceCache referenceCache;
+    private ManualExecutor executor;
+    private SeanceReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        referenceCache = mock(ReferenceCache.class);
+        executor = new ManualExecutor();
+        readModel = new SeanceReadModel(mongoTemplate, referenceCache, executor);
+
+        when(referenceCache.training("t1")).thenReturn(Optional.of(
+                Training.builder().id("t1").title("Robotique").documentBase64("JVBERi0=").build()));
+        when(referenceCache.group("g1")).thenReturn(Optional.of(Group.builder().id("g1").name("Groupe A").build()));
+        when(referenceCache.user("u1")).thenReturn(Optional.of(
+                User.builder().id("u1").firstName("Sami").lastName("Trabelsi").build()));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Seance.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    private Seance seance() {
+        return Seance.builder().id("se1").trainingId("t1").groupId("g1").trainerId("u1").build();
+    }
+
+    @Test
+    @DisplayName("fill sets every display name from the reference cache")
+    void testFill() {
+        Seance seance = seance();
+        readModel.fill(seance);
+
+        assertEquals("Robotique", seance.getTrainingTitle());
+        assertEquals("/trainings/t1/document", seance.getTrainingDocumentUrl());
+        assertEquals("Groupe A", seance.getGroupName());
+        assertEquals("Sami Trabelsi", seance.getTrainerName());
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("fill leaves the names of unknown references empty")
+    void testFillUnknown() {
+        Seance seance = Seance.builder().trainingId("inconnue").groupId("inconnu").trainerId("inconnu").build();
+        when(referenceCache.training("inconnue")).thenReturn(Optional.empty());
+        when(referenceCache.group("inconnu")).thenReturn(Optional.empty());
+        when(referenceCache.user("inconnu")).thenReturn(Optional.empty());
+        readModel.fill(seance);
+
+        assertNull(seance.getTrainingTitle());
+        assertNull(seance.getTrainingDocumentUrl());
+        assertNull(seance.getGroupName());
+        assertNull(seance.getTrainerName());
+    }
+
+    @Test
+    @DisplayName("Renames queued before the refresh runs collapse into one updateMulti with the latest name")
+    void testCoalescing() {
+        readModel.groupChanged("g1");
+        readModel.groupChanged("g1");
+        when(referenceCache.group("g1")).thenReturn(Optional.of(Group.builder().id("g1").name("Groupe B").build()));
+        readModel.groupChanged("g1");
+        assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).updateMulti(query.capture(), update.capture(), eq(Seance.class));
+        assertEquals("Groupe B", update.getValue().getUpdateObject().get("$set", Document.class).get("groupName"));
+        // Only the séances whose name differs are rewritten
+        assertTrue(query.getValue().getQueryObject().toJson().contains("$ne"));
+
+        readModel.groupChanged("g1");
+        assertEquals(1, executor.tasks.size());
+    }
+
+    @Test
+    @DisplayName("A saved séance re-queues its references, so a rename refreshed before the save is not lost")
+    void testSavedAfterRename() {
+        Seance seance = seance();
+        readModel.fill(seance);
+        // The group is renamed and its refresh runs before the séance is saved
+        when(referenceCache.group("g1")).thenReturn(Optional.of(Group.builder().id("g1").name("Groupe B").build()));
+        readModel.groupChanged("g1");
+        executor.runAll();
+        assertEquals("Groupe A", seance.getGroupName());
+
+        readModel.saved(seance);
+        assertEquals(3, executor.tasks.size());
+        executor.runAll();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(4)).updateMulti(any(Query.class), update.capture(), eq(Seance.class));
+        assertTrue(update.getAllValues().stream()
+                .map(u -> u.getUpdateObject().get("$set", Document.class))
+                .anyMatch(set -> "Groupe B".equals(set.get("groupName"))));
+    }
+
+    @Test
+    @DisplayName("Startup backfill queues one refresh per reference missing its names")
+    void testBackfill() {
+        when(mongoTemplate.findDistinct(any(Query.class), eq("trainingId"), eq(Seance.class), eq(String.class)))
+                .thenReturn(List.of("t1"));
+        when(mongoTemplate.findDistinct(any(Query.class), eq("groupId"), eq(Seance.class), eq(String.class)))
+                .thenReturn(List.of("g1"));
+        when(mongoTemplate.findDistinct(any(Query.class), eq("trainerId"), eq(Seance.class), eq(String.class)))
+                .thenReturn(List.of("u1", "u1"));
+
+        readModel.backfill();
+        assertEquals(3, executor.tasks.size());
+        executor.runAll();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(3)).updateMulti(any(Query.class), update.capture(), eq(Seance.class));
+        List<Object> names = update.getAllValues().stream()
+                .map(u -> u.getUpdateObject().get("$set", Document.class))
+                .flatMap(set -> set.values().stream())
+                .toList();
+        assertTrue(names.containsAll(List.of("Robotique", "/trainings/t1/document", "Groupe A", "Sami Trabelsi")));
+    }
+
+    @Test
+    @DisplayName("A failing backfill does not prevent startup")
+    void testBackfillFailure() {
+        when(mongoTemplate.findDistinct(any(Query.class), any(String.class), eq(Seance.class), eq(String.class)))
+                .thenThrow(new IllegalStateException("mongo indisponible"));
+
+        assertDoesNotThrow(readModel::backfill);
+        assertTrue(executor.tasks.isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package tn.astba.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    @DisplayName("Concurrent callers for the same key share one load")
+    void testCoalesce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> singleFlight.load("trainings", "t1", () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "Robotique";
+            }));
+            while (loads.get() == 0) Thread.onSpinWait();
+            Future<String> follower = pool.submit(() -> singleFlight.load("trainings", "t1", () -> {
+                loads.incrementAndGet();
+                return "autre";
+            }));
+            while (singleFlight.coalescedCount("trainings") == 0) Thread.onSpinWait();
+            release.countDown();
+
+            assertEquals("Robotique", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("Robotique", follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Nothing is kept once the load completes, failures included")
+    void testNotRetained() {
+        assertThrows(IllegalStateException.class, () -> singleFlight.load("groups", "g1", () -> {
+            throw new IllegalStateException("mongo");
+        }));
+        assertEquals("A", singleFlight.load("groups", "g1", () -> "A"));
+        assertEquals("B", singleFlight.load("groups", "g1", () -> "B"));
+        assertEquals(0, singleFlight.coalescedCount("groups"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package tn.astba.service;
+
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import tn.astba.domain.Student;
+import tn.astba.dto.StudentImportError;
+import tn.astba.dto.StudentImportResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StudentImportServiceTest {
+
+    private static final String HEADER = "prénom,nom,date de naissance,email,téléphone\n";
+
+    private MongoTemplate mongoTemplate;
+    private StudentImportService service;
+    private final List<Student> inserted = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.stream(any(Query.class), eq(Student.class))).thenAnswer(inv -> Stream.of(
+                Student.builder().id("x1").email("Deja@Exemple.tn").phone("20000000").build()));
+        when(mongoTemplate.insert(anyCollection(), eq(Student.class))).thenAnswer(inv -> {
+            Collection<Student> batch = inv.getArgument(0);
+            inserted.addAll(batch);
+            return batch;
+        });
+        service = new StudentImportService(mongoTemplate, mock(StudentService.class), mock(TypeaheadService.class),
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+    }
+
+    private static MockMultipartFile csv(String rows) {
+        return new MockMultipartFile("file", "eleves.csv", "text/csv", (HEADER + rows).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Valid rows are inserted in batches with trimmed names")
+    void testImport() {
+        StudentImportResponse response = service.importCsv(csv(
+                "  Amine ,Ben Salah,2012-03-04,amine@exemple.tn,21111111\n"
+                        + "Sarra,Trabelsi,05/06/2013,sarra@exemple.tn,\n"
+                        + "Yasmine,Gharbi,2014-01-01,yasmine@exemple.tn,22222222\n"), false);
+
+        assertEquals(3, response.getTotalRows());
+        assertEquals(3, response.getImported());
+        assertEquals(0, response.getRejected());
+        verify(mongoTemplate, times(2)).insert(anyCollection(), eq(Student.class));
+        assertEquals("Amine", inserted.get(0).getFirstName());
+        assertNull(inserted.get(1).getPhone());
+    }
+
+    @Test
+    @DisplayName("Emails and phones already in the database or earlier in the file are rejected")
+    void testDedupe() {
+        StudentImportResponse response = service.importCsv(csv(
+                "Amine,Ben Salah,2012-03-04,deja@exemple.tn,\n"
+                        + "Sarra,Trabelsi,2013-06-05,sarra@exemple.tn,20000000\n"
+                        + "Yasmine,Gharbi,2014-01-01,yasmine@exemple.tn,23333333\n"
+                        + "Yasmine,Copie,2014-01-01,YASMINE@exemple.tn,\n"
+                        + "Omar,Jlassi,2012-09-09,omar@exemple.tn,23333333\n"), false);
+
+        assertEquals(5, response.getTotalRows());
+        assertEquals(1, response.getImported());
+        assertEquals(4, response.getRejected());
+        assertEquals(List.of(2, 3, 5, 6), response.getErrors().stream().map(StudentImportError::getLine).toList());
+        assertEquals(List.of("email", "phone", "email", "phone"),
+                response.getErrors().stream().map(StudentImportError::getField).toList());
+        assertEquals(List.of("yasmine@exemple.tn"), inserted.stream().map(Student::getEmail).toList());
+    }
+
+    @Test
+    @DisplayName("Invalid rows are reported per line and do not stop the import")
+    void testRowErrors() {
+        StudentImportResponse response = service.importCsv(csv(
+                "A,Ben Salah,2012-03-04,amine@exemple.tn,\n"
+                        + "Sarra,Trabelsi,31/02/2013,sarra@exemple.tn,\n"
+                        + "Yasmine,Gharbi,2014-01-01,pas-un-email,\n"
+                        + "Omar,Jlassi,2012-09-09,omar@exemple.tn,\n"), false);
+
+        assertEquals(1, response.getImported());
+        assertEquals(3, response.getRejected());
+        assertEquals(List.of("firstName", "birthDate", "email"),
+                response.getErrors().stream().map(StudentImportError::getField).toList());
+        assertEquals(List.of(2, 3, 4), response.getErrors().stream().map(StudentImportError::getLine).toList());
+    }
+
+    @Test
+    @DisplayName("Dry run reports the same result without writing")
+    void testDryRun() {
+        StudentImportResponse response = service.importCsv(csv(
+                "Amine,Ben Salah,2012-03-04,amine@exemple.tn,\n"
+                        + "Sarra,Trabelsi,2013-06-05,deja@exemple.tn,\n"), true);
+
+        assertTrue(response.isDryRun());
+        assertEquals(1, response.getImported());
+        assertEquals(1, response.getRejected());
+        verify(mongoTemplate, never()).insert(anyCollection(), any(Class.class));
+    }
+}
@@ -0,0 +1,69 @@
+package tn.astba.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TabularWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private String write(ExportFormat format, List<?>... rows) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TabularWriter writer = new TabularWriter(format, objectMapper, out);
+        writer.header(List.of("id", "name", "count"));
+        for (List<?> row : rows) writer.row(row);
+        writer.flush();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("CSV: BOM, CRLF, RFC 4180 quoting, empty cells for null")
+    void testCsv() throws IOException {
+        String csv = write(ExportFormat.CSV,
+                Arrays.asList("s1", "Ben Salah, Amine", 3),
+                Arrays.asList("s2", "dit \"bonjour\"\nà tous", null));
+
+        assertEquals("﻿id,name,count\r\n"
+                + "s1,\"Ben Salah, Amine\",3\r\n"
+                + "s2,\"dit \"\"bonjour\"\"\nà tous\",\r\n", csv);
+    }
+
+    @Test
+    @DisplayName("CSV: text cells that would be evaluated as formulas are prefixed with a quote")
+    void testFormulaInjection() throws IOException {
+        String csv = write(ExportFormat.CSV,
+                Arrays.asList("s1", "=HYPERLINK(\"http://x\")", -1),
+                Arrays.asList("s2", "@SUM(A1)", 0),
+                Arrays.asList("s3", "+21620000000", 0),
+                Arrays.asList("s4", "\tcmd", 0));
+
+        assertTrue(csv.contains("s1,\"'=HYPERLINK(\"\"http://x\"\")\",-1\r\n"));
+        assertTrue(csv.contains("s2,'@SUM(A1),0\r\n"));
+        assertTrue(csv.contains("s3,'+21620000000,0\r\n"));
+        assertTrue(csv.contains("s4,'\tcmd,0\r\n"));
+        assertEquals("'-5", TabularWriter.neutralize("-5"));
+        assertEquals("Amine", TabularWriter.neutralize("Amine"));
+        assertEquals("", TabularWriter.neutralize(""));
+    }
+
+    @Test
+    @DisplayName("NDJSON: one object per line, keyed by the header, values not altered")
+    void testNdjson() throws IOException {
+        String ndjson = write(ExportFormat.NDJSON,
+                Arrays.asList("s1", "=1+1", 3),
+                Arrays.asList("s2", null));
+
+        assertEquals("{\"id\":\"s1\",\"name\":\"=1+1\",\"count\":3}\n"
+                + "{\"id\":\"s2\",\"name\":null,\"count\":null}\n", ndjson);
+    }
+}
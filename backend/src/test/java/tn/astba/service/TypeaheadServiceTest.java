@@ -0,0 +1,79 @@
+package tn.astba.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import tn.astba.domain.Student;
+import tn.astba.domain.User;
+import tn.astba.dto.TypeaheadSuggestion;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TypeaheadServiceTest {
+
+    private MongoTemplate mongoTemplate;
+    private TypeaheadService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new TypeaheadService(mongoTemplate);
+        when(mongoTemplate.stream(any(Query.class), eq(User.class))).thenAnswer(inv -> Stream.empty());
+    }
+
+    private static Student student(String id, String firstName, String lastName) {
+        return Student.builder().id(id).firstName(firstName).lastName(lastName).build();
+    }
+
+    private List<String> ids(String query) {
+        return service.suggestStudents(query, 10).stream().map(TypeaheadSuggestion::getId).toList();
+    }
+
+    @Test
+    @DisplayName("Rebuild indexes every student read from Mongo")
+    void testRebuild() {
+        when(mongoTemplate.stream(any(Query.class), eq(Student.class)))
+                .thenAnswer(inv -> Stream.of(student("s1", "Amine", "Ben Salah"), student("s2", "Sarra", "Trabelsi")));
+
+        service.rebuild();
+
+        assertEquals(List.of("s1"), ids("ami"));
+        assertEquals(List.of("s2"), ids("trab"));
+    }
+
+    @Test
+    @DisplayName("Writes pushed while a rebuild reads Mongo survive the swap")
+    void testWritesDuringRebuild() {
+        service.onStudentSaved(student("s1", "Amine", "Ben Salah"));
+        when(mongoTemplate.stream(any(Query.class), eq(Student.class))).thenAnswer(inv -> {
+            // The cursor was opened before these writes: it still returns s1 and misses s3
+            service.onStudentSaved(student("s3", "Yasmine", "Gharbi"));
+            service.onStudentDeleted("s1");
+            return Stream.of(student("s1", "Amine", "Ben Salah"));
+        });
+
+        service.rebuild();
+
+        assertEquals(List.of("s3"), ids("yas"));
+        assertTrue(ids("ami").isEmpty());
+    }
+
+    @Test
+    @DisplayName("A failed rebuild keeps the current index and stops recording writes")
+    void testFailedRebuild() {
+        service.onStudentSaved(student("s1", "Amine", "Ben Salah"));
+        when(mongoTemplate.stream(any(Query.class), eq(Student.class))).thenThrow(new IllegalStateException("mongo"));
+
+        service.rebuild();
+
+        assertEquals(List.of("s1"), ids("ami"));
+    }
+}